@@ -42,6 +42,8 @@ import com.github.sevntu.checkstyle.dot.DependencyInfoGraphSerializer;
 import com.github.sevntu.checkstyle.dsm.DependencyInfoMatrixSerializer;
 import com.github.sevntu.checkstyle.module.DependencyInformationConsumer;
 import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.reordering.ReorderingBudget;
+import com.github.sevntu.checkstyle.reordering.TopologicalMethodReorderer;
 import com.github.sevntu.checkstyle.utils.FileUtils;
 import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
 import com.puppycrawl.tools.checkstyle.api.Configuration;
@@ -56,17 +58,44 @@ public class MainServlet extends HttpServlet {
 
     private static final String CONTENT_LENGTH_HEADER = "Content-Length";
 
+    /** Default latency budget of reordering methods of a file. */
+    private static final long DEFAULT_REORDERING_TIME_LIMIT_MILLIS = 2000;
+
+    /** Name of init parameter overriding latency budget of reordering. */
+    private static final String REORDERING_TIME_LIMIT_PARAMETER = "reorderingTimeLimitMillis";
+
+    private long reorderingTimeLimitMillis = DEFAULT_REORDERING_TIME_LIMIT_MILLIS;
+
+    @Override
+    public void init() throws ServletException {
+        final String timeLimit = getInitParameter(REORDERING_TIME_LIMIT_PARAMETER);
+        if (timeLimit != null) {
+            try {
+                reorderingTimeLimitMillis = Long.parseLong(timeLimit.trim());
+            }
+            catch (final NumberFormatException ex) {
+                throw new ServletException("Invalid " + REORDERING_TIME_LIMIT_PARAMETER + ": "
+                    + timeLimit, ex);
+            }
+            if (reorderingTimeLimitMillis <= 0) {
+                throw new ServletException(REORDERING_TIME_LIMIT_PARAMETER
+                    + " must be positive: " + timeLimit);
+            }
+        }
+    }
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException,
             IOException {
 
         final String requestPath = req.getPathInfo();
         final String sourceUrl = req.getParameter("source_url");
+        final boolean reorder = Boolean.parseBoolean(req.getParameter("reorder"));
         try {
             final URL url = new URL(sourceUrl);
             switch (requestPath) {
                 case "/dsm":
-                    processDsm(url, resp);
+                    processDsm(url, reorder, reorderingTimeLimitMillis, resp);
                     break;
                 case "/dot":
                     processDot(url, resp);
@@ -85,8 +114,19 @@ public class MainServlet extends HttpServlet {
         }
     }
 
-    private static void processDsm(URL sourceUrl, HttpServletResponse resp)
-            throws CheckstyleException, IOException {
+    /**
+     * Generates DSM of methods in their initial order or, if requested, in order found by
+     * {@link TopologicalMethodReorderer} within latency budget.
+     *
+     * @param sourceUrl url of source file
+     * @param reorder whether to reorder methods
+     * @param timeLimitMillis latency budget of reordering
+     * @param resp response
+     * @throws CheckstyleException if source can not be processed
+     * @throws IOException if source can not be downloaded
+     */
+    private static void processDsm(URL sourceUrl, boolean reorder, long timeLimitMillis,
+            HttpServletResponse resp) throws CheckstyleException, IOException {
 
         class DsmDependencyInformationConsumer implements DependencyInformationConsumer {
 
@@ -101,7 +141,16 @@ public class MainServlet extends HttpServlet {
             public void accept(String filePath, Dependencies dependencies) {
                 try {
                     final String javaSource = FileUtils.getFileContents(filePath);
-                    final MethodOrder methodOrder = new MethodOrder(dependencies);
+                    final MethodOrder initialMethodOrder = new MethodOrder(dependencies);
+                    final MethodOrder methodOrder;
+                    if (reorder) {
+                        methodOrder = new TopologicalMethodReorderer().reorder(
+                            initialMethodOrder,
+                            new ReorderingBudget(timeLimitMillis));
+                    }
+                    else {
+                        methodOrder = initialMethodOrder;
+                    }
                     final String html = DependencyInfoMatrixSerializer.serialize(
                         methodOrder, javaSource, configuration);
                     resp.setContentType("text/html");
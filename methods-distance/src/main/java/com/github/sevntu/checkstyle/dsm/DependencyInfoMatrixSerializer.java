@@ -31,6 +31,7 @@ import org.apache.velocity.runtime.RuntimeConstants;
 import org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader;
 
 import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.PenaltyBreakdown;
 import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
 import com.github.sevntu.checkstyle.utils.FileUtils;
 import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
@@ -63,13 +64,16 @@ public final class DependencyInfoMatrixSerializer {
         engine.init();
         final PenaltyCalculator calculator = getPenaltyCalculator();
         final int screenLinesCount = Integer.parseInt(config.getAttribute("screenLinesCount"));
+        final PenaltyBreakdown penalty =
+            calculator.getPenaltyBreakdown(methodOrder, screenLinesCount);
         final VelocityContext context = new VelocityContext();
         context.put("info", methodOrder);
         context.put("javaScript", getJavaScript());
         context.put("css", getStyles());
         context.put("javaSource", javaSource);
         context.put("calculator", calculator);
-        context.put("penaltyValue", calculator.getPenalty(methodOrder, screenLinesCount));
+        context.put("penalty", penalty);
+        context.put("penaltyValue", penalty.getPenalty());
         context.put("configuration", config);
         final StringWriter writer = new StringWriter();
         final Template template =
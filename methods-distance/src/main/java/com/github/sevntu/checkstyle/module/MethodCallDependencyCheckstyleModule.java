@@ -40,14 +40,23 @@ public class MethodCallDependencyCheckstyleModule extends AbstractCheck {
 
     public static final String MSG_KEY = "method.call.dependencies.moveMethod";
 
+    public static final int DEFAULT_SCREEN_LINES_COUNT = 50;
+
     private Optional<DetailAST> topLevelClass;
 
     private List<DetailAST> methodInvocations = new ArrayList<>();
 
     private final Optional<DependencyInformationConsumer> consumer;
 
+    private int screenLinesCount = DEFAULT_SCREEN_LINES_COUNT;
+
     public MethodCallDependencyCheckstyleModule(DependencyInformationConsumer dic) {
         consumer = Optional.of(dic);
+        dic.setModule(this);
+    }
+
+    public int getScreenLinesCount() {
+        return screenLinesCount;
     }
 
     /**
@@ -57,7 +66,7 @@ public class MethodCallDependencyCheckstyleModule extends AbstractCheck {
      *     The number of lines that can fit on the screen.
      */
     public void setScreenLinesCount(int screenLinesCount) {
-        // This setter is created only to allow putting this property to CS module config.
+        this.screenLinesCount = screenLinesCount;
     }
 
     @Override
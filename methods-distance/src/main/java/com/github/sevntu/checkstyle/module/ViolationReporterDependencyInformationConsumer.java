@@ -19,18 +19,37 @@
 
 package com.github.sevntu.checkstyle.module;
 
+import java.util.Optional;
+
 import com.github.sevntu.checkstyle.domain.Dependencies;
 import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
 import com.github.sevntu.checkstyle.reordering.MethodReorderer;
+import com.github.sevntu.checkstyle.reordering.ReorderingBudget;
+import com.github.sevntu.checkstyle.reordering.ReorderingResult;
 import com.github.sevntu.checkstyle.reordering.TopologicalMethodReorderer;
 
 public class ViolationReporterDependencyInformationConsumer
     implements DependencyInformationConsumer {
 
+    /** No time limit, every file is reordered completely. */
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = Long.MAX_VALUE;
+
+    /** Every file is reordered whatever its optimality gap is. */
+    public static final double DEFAULT_MIN_OPTIMALITY_GAP = 0;
+
+    private final PenaltyCalculator calculator = new PenaltyCalculator();
+
     private final MethodReorderer reorderer = new TopologicalMethodReorderer();
 
     private MethodCallDependencyCheckstyleModule module;
 
+    private long timeLimitMillis = DEFAULT_TIME_LIMIT_MILLIS;
+
+    private double minOptimalityGap = DEFAULT_MIN_OPTIMALITY_GAP;
+
+    private Optional<ReorderingResult> lastResult = Optional.empty();
+
     @Override
     public void setModule(MethodCallDependencyCheckstyleModule module) {
         this.module = module;
@@ -40,8 +59,54 @@ public class ViolationReporterDependencyInformationConsumer
     public void accept(String filePath, Dependencies dependencies) {
 
         final MethodOrder initialMethodOrder = new MethodOrder(dependencies);
-        final MethodOrder optimizedMethodOrder = reorderer.reorder(initialMethodOrder);
-        logFirstMethodOutOfOrder(module, optimizedMethodOrder);
+        final int screenLinesCount = module.getScreenLinesCount();
+        if (minOptimalityGap <= 0 || calculator.getOptimalityGap(initialMethodOrder,
+            screenLinesCount).getGap() >= minOptimalityGap) {
+            final ReorderingResult result = reorderer.reorder(initialMethodOrder,
+                new ReorderingBudget(timeLimitMillis), calculator, screenLinesCount);
+            lastResult = Optional.of(result);
+            logFirstMethodOutOfOrder(module, result.getMethodOrder());
+        }
+        else {
+            lastResult = Optional.empty();
+        }
+    }
+
+    /**
+     * Penalty, its lower bound and optimality gap of ordering found for the last accepted file.
+     *
+     * @return result of reordering, empty if the file was skipped by optimality gap
+     */
+    public Optional<ReorderingResult> getLastResult() {
+        return lastResult;
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    /**
+     * Limits time spent on reordering methods of each file. When limit expires, violation is
+     * reported against the best ordering found so far.
+     *
+     * @param timeLimitMillis time limit per file
+     */
+    public void setTimeLimitMillis(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    public double getMinOptimalityGap() {
+        return minOptimalityGap;
+    }
+
+    /**
+     * Skips files which methods are already ordered close enough to optimum: penalty of their
+     * ordering exceeds the lower bound of penalty by less than given share of the penalty.
+     *
+     * @param minOptimalityGap least gap, from 0 to 1, which makes file worth reordering
+     */
+    public void setMinOptimalityGap(double minOptimalityGap) {
+        this.minOptimalityGap = minOptimalityGap;
     }
 
     private static void logFirstMethodOutOfOrder(
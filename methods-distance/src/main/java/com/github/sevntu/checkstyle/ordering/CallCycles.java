@@ -0,0 +1,103 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.ordering;
+
+/**
+ * Declaration before usage cases forced by call cycles among unplaced methods.
+ * <p>
+ * Every cycle of call graph has at least one dependency which callee is declared before its
+ * caller. Mutually dependent methods form a cycle each, and such cycles share no dependencies,
+ * so strongly connected component with cycles forces at least as many cases as it has
+ * mutually dependent pairs, and at least one case if it has none. Components are found among
+ * dependencies between unplaced methods.
+ * </p>
+ */
+final class CallCycles {
+
+    private CallCycles() {
+    }
+
+    /**
+     * Counts declaration before usage cases which are unavoidable among unplaced methods.
+     *
+     * @param order ordering which first methods are placed
+     * @param placedCount number of placed methods
+     * @return lower bound of declaration before usage cases among unplaced methods
+     */
+    public static int getForcedDeclarationBeforeUsageCases(MethodOrder order,
+                                                           int placedCount) {
+        final CallGraph callGraph = order.getClassGraph().getCallGraph();
+        final int methodsCount = order.getMethods().size();
+        final int[][] callees = new int[methodsCount][];
+        for (int index = 0; index < methodsCount; ++index) {
+            final int method = order.getMethodAt(index);
+            if (index < placedCount) {
+                callees[method] = new int[0];
+            }
+            else {
+                callees[method] = getUnplacedCallees(order, placedCount, method);
+            }
+        }
+        final StronglyConnectedComponents components = new StronglyConnectedComponents(callees);
+        for (int index = placedCount; index < methodsCount; ++index) {
+            components.visit(order.getMethodAt(index));
+        }
+        final int[] sizes = new int[components.getComponentsCount()];
+        final int[] mutualPairs = new int[components.getComponentsCount()];
+        for (int index = placedCount; index < methodsCount; ++index) {
+            final int method = order.getMethodAt(index);
+            final int component = components.getComponent(method);
+            ++sizes[component];
+            for (final int callee : callees[method]) {
+                if (callee < method && callGraph.isMethodDependsOn(callee, method)) {
+                    ++mutualPairs[component];
+                }
+            }
+        }
+        int result = 0;
+        for (int component = 0; component < sizes.length; ++component) {
+            if (sizes[component] > 1) {
+                result += Math.max(1, mutualPairs[component]);
+            }
+        }
+        return result;
+    }
+
+    private static int[] getUnplacedCallees(MethodOrder order, int placedCount, int method) {
+        final CallGraph callGraph = order.getClassGraph().getCallGraph();
+        final int dependenciesCount = callGraph.getDependenciesCount(method);
+        int count = 0;
+        for (int position = 0; position < dependenciesCount; ++position) {
+            if (order.getIndexOf(callGraph.getDependency(method, position)) >= placedCount) {
+                ++count;
+            }
+        }
+        final int[] result = new int[count];
+        count = 0;
+        for (int position = 0; position < dependenciesCount; ++position) {
+            final int callee = callGraph.getDependency(method, position);
+            if (order.getIndexOf(callee) >= placedCount) {
+                result[count] = callee;
+                ++count;
+            }
+        }
+        return result;
+    }
+}
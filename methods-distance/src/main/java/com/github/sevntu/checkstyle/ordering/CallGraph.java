@@ -0,0 +1,181 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.ordering;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable call graph of a class shared by all orderings of its methods.
+ * <p>
+ * Methods are identified by their initial index. Dependencies of each caller are stored
+ * deduplicated in appearance order as compressed sparse rows, dependants of each callee
+ * are stored the same way in order of callers initial indices.
+ * </p>
+ * <p>
+ * Appearance order of invocations of a caller does not depend on ordering of methods as long
+ * as every invocation lies on a line which belongs to the caller only, because all such
+ * invocations are shifted by the same number of lines. Callers which have invocations on a
+ * line shared with another method are marked as layout dependent, their dependencies are
+ * stored in initial appearance order and have to be re-sorted for each ordering.
+ * </p>
+ */
+final class CallGraph {
+
+    private final int[] dependenciesStart;
+
+    private final int[] dependencies;
+
+    private final int[] dependantsStart;
+
+    private final int[] dependants;
+
+    private final boolean[] layoutDependent;
+
+    private final int[] layoutSensitiveCallers;
+
+    CallGraph(List<Method> initialOrdering, CallTable calls) {
+        final int methodCount = initialOrdering.size();
+        layoutDependent = new boolean[methodCount];
+        dependenciesStart = new int[methodCount + 1];
+        final int[] dependantsCount = new int[methodCount];
+        final List<Integer> callees = new ArrayList<>();
+        for (int caller = 0; caller < methodCount; ++caller) {
+            final Method callerMethod = initialOrdering.get(caller);
+            layoutDependent[caller] = IntStream
+                .range(calls.getCallsStart(caller), calls.getCallsEnd(caller))
+                .anyMatch(call -> {
+                    return !isLineOwnedBy(initialOrdering, callerMethod, calls.getLineNo(call));
+                });
+            IntStream.range(calls.getCallsStart(caller), calls.getCallsEnd(caller))
+                .map(calls::getCallee)
+                .distinct()
+                .forEach(callee -> {
+                    callees.add(callee);
+                    ++dependantsCount[callee];
+                });
+            dependenciesStart[caller + 1] = callees.size();
+        }
+        dependencies = callees.stream().mapToInt(Integer::intValue).toArray();
+        layoutSensitiveCallers = IntStream.range(0, methodCount)
+            .filter(caller -> {
+                return layoutDependent[caller] || IntStream
+                    .range(calls.getCallsStart(caller), calls.getCallsEnd(caller))
+                    .mapToObj(call -> initialOrdering.get(calls.getCallee(call)))
+                    .anyMatch(callee -> {
+                        return !isLineOwnedBy(initialOrdering, callee, callee.getInitialLineNo());
+                    });
+            })
+            .toArray();
+        dependantsStart = new int[methodCount + 1];
+        for (int callee = 0; callee < methodCount; ++callee) {
+            dependantsStart[callee + 1] = dependantsStart[callee] + dependantsCount[callee];
+        }
+        dependants = new int[dependencies.length];
+        final int[] dependantsFilled = new int[methodCount];
+        for (int caller = 0; caller < methodCount; ++caller) {
+            for (int offset = dependenciesStart[caller]; offset < dependenciesStart[caller + 1];
+                 ++offset) {
+                final int callee = dependencies[offset];
+                dependants[dependantsStart[callee] + dependantsFilled[callee]] = caller;
+                ++dependantsFilled[callee];
+            }
+        }
+    }
+
+    public int getMethodCount() {
+        return layoutDependent.length;
+    }
+
+    public int getDependenciesCount(int caller) {
+        return dependenciesStart[caller + 1] - dependenciesStart[caller];
+    }
+
+    public int getDependency(int caller, int position) {
+        return dependencies[dependenciesStart[caller] + position];
+    }
+
+    public int getDependantsCount(int callee) {
+        return dependantsStart[callee + 1] - dependantsStart[callee];
+    }
+
+    public int getDependant(int callee, int position) {
+        return dependants[dependantsStart[callee] + position];
+    }
+
+    public boolean isMethodDependsOn(int caller, int callee) {
+        boolean result = false;
+        for (int offset = dependenciesStart[caller]; offset < dependenciesStart[caller + 1];
+             ++offset) {
+            if (dependencies[offset] == callee) {
+                result = true;
+                break;
+            }
+        }
+        return result;
+    }
+
+    public boolean isLayoutDependent(int caller) {
+        return layoutDependent[caller];
+    }
+
+    /**
+     * Callers which line distances to their callees may change even if neither the caller nor
+     * its callees are moved. Those are layout dependent callers and callers of methods which
+     * start on a line shared with another method.
+     *
+     * @return number of such callers
+     */
+    public int getLayoutSensitiveCallersCount() {
+        return layoutSensitiveCallers.length;
+    }
+
+    public int getLayoutSensitiveCaller(int position) {
+        return layoutSensitiveCallers[position];
+    }
+
+    /**
+     * Checks whether line lies within method and no other method. Methods in initial ordering
+     * do not overlap except for the boundary lines, so only neighbours of the method have to
+     * be checked.
+     *
+     * @param initialOrdering methods in initial order
+     * @param method method
+     * @param lineNo line number in initial ordering
+     * @return true if line is owned by method only
+     */
+    private static boolean isLineOwnedBy(List<Method> initialOrdering, Method method,
+                                         int lineNo) {
+        final int index = method.getInitialIndex();
+        final boolean sharedWithPrevious = index > 0
+            && lineNo == method.getInitialLineNo()
+            && getEndLineNo(initialOrdering.get(index - 1)) >= lineNo;
+        final boolean sharedWithNext = index + 1 < initialOrdering.size()
+            && lineNo == getEndLineNo(method)
+            && initialOrdering.get(index + 1).getInitialLineNo() <= lineNo;
+        return method.getInitialLineNo() <= lineNo && lineNo <= getEndLineNo(method)
+            && !sharedWithPrevious && !sharedWithNext;
+    }
+
+    private static int getEndLineNo(Method method) {
+        return method.getInitialLineNo() + method.getLength();
+    }
+}
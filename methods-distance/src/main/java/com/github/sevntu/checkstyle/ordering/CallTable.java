@@ -0,0 +1,289 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.ordering;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang.builder.CompareToBuilder;
+
+import com.github.sevntu.checkstyle.domain.ResolvedCall;
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+
+/**
+ * Immutable table of method invocations of a class stored as columns of primitives.
+ * <p>
+ * Invocations are identified by their index in the table. Invocations of each caller occupy
+ * a contiguous range of indices and are stored in appearance order in initial ordering.
+ * </p>
+ */
+final class CallTable {
+
+    private final int[] callsStart;
+
+    private final int[] callers;
+
+    private final int[] callees;
+
+    private final int[] lineNos;
+
+    private final int[] columnNos;
+
+    private final boolean[] methodRefs;
+
+    /** Index of invocation the invocation is nested inside or -1. */
+    private final int[] nestingParents;
+
+    CallTable(List<ResolvedCall> resolvedCalls, Map<String, Method> methods) {
+        final int callCount = resolvedCalls.size();
+        final int[] unsortedCallers = new int[callCount];
+        final int[] unsortedCallees = new int[callCount];
+        final int[] unsortedLineNos = new int[callCount];
+        final int[] unsortedColumnNos = new int[callCount];
+        final List<DetailAST> nodes = new ArrayList<>(callCount);
+        for (int call = 0; call < callCount; ++call) {
+            final ResolvedCall resolvedCall = resolvedCalls.get(call);
+            unsortedCallers[call] =
+                methods.get(resolvedCall.getCaller().getSignature()).getInitialIndex();
+            unsortedCallees[call] =
+                methods.get(resolvedCall.getCallee().getSignature()).getInitialIndex();
+            unsortedLineNos[call] = resolvedCall.getAstNode().getLineNo();
+            unsortedColumnNos[call] = resolvedCall.getAstNode().getColumnNo();
+            nodes.add(resolvedCall.getAstNode());
+        }
+        final int[] unsortedNestingParents = InvocationNesting.getNestingParents(nodes);
+        final List<Integer> order = IntStream.range(0, callCount).boxed()
+            .sorted(Comparator.<Integer>comparingInt(call -> unsortedCallers[call])
+                .thenComparingInt(call -> unsortedLineNos[call])
+                .thenComparingInt(call -> unsortedColumnNos[call]))
+            .collect(Collectors.toList());
+        callsStart = new int[methods.size() + 1];
+        for (final int caller : unsortedCallers) {
+            ++callsStart[caller + 1];
+        }
+        for (int caller = 0; caller < methods.size(); ++caller) {
+            callsStart[caller + 1] += callsStart[caller];
+            order.subList(callsStart[caller], callsStart[caller + 1])
+                .sort(new AppearanceOrderComparator(unsortedLineNos, unsortedColumnNos,
+                    unsortedNestingParents, IntUnaryOperator.identity()));
+        }
+        final int[] newIndices = new int[callCount];
+        for (int call = 0; call < callCount; ++call) {
+            newIndices[order.get(call)] = call;
+        }
+        callers = new int[callCount];
+        callees = new int[callCount];
+        lineNos = new int[callCount];
+        columnNos = new int[callCount];
+        methodRefs = new boolean[callCount];
+        nestingParents = new int[callCount];
+        for (int call = 0; call < callCount; ++call) {
+            final int unsortedCall = order.get(call);
+            callers[call] = unsortedCallers[unsortedCall];
+            callees[call] = unsortedCallees[unsortedCall];
+            lineNos[call] = unsortedLineNos[unsortedCall];
+            columnNos[call] = unsortedColumnNos[unsortedCall];
+            methodRefs[call] = resolvedCalls.get(unsortedCall).isMethodRef();
+            final int nestingParent = unsortedNestingParents[unsortedCall];
+            if (nestingParent < 0) {
+                nestingParents[call] = nestingParent;
+            }
+            else {
+                nestingParents[call] = newIndices[nestingParent];
+            }
+        }
+    }
+
+    /**
+     * Creates table of invocations between given methods only. Invocation nested inside
+     * a dropped one becomes nested inside the closest kept enclosing invocation.
+     *
+     * @param table table of all methods
+     * @param newIndices new initial index of each method or -1 if method is dropped, kept
+     *     methods should keep their relative order
+     * @param methodCount number of kept methods
+     */
+    CallTable(CallTable table, int[] newIndices, int methodCount) {
+        final int[] newCalls = new int[table.getCallCount()];
+        int callCount = 0;
+        for (int call = 0; call < newCalls.length; ++call) {
+            if (newIndices[table.callers[call]] >= 0 && newIndices[table.callees[call]] >= 0) {
+                newCalls[call] = callCount;
+                ++callCount;
+            }
+            else {
+                newCalls[call] = -1;
+            }
+        }
+        callsStart = new int[methodCount + 1];
+        callers = new int[callCount];
+        callees = new int[callCount];
+        lineNos = new int[callCount];
+        columnNos = new int[callCount];
+        methodRefs = new boolean[callCount];
+        nestingParents = new int[callCount];
+        for (int call = 0; call < newCalls.length; ++call) {
+            final int newCall = newCalls[call];
+            if (newCall >= 0) {
+                callers[newCall] = newIndices[table.callers[call]];
+                callees[newCall] = newIndices[table.callees[call]];
+                lineNos[newCall] = table.lineNos[call];
+                columnNos[newCall] = table.columnNos[call];
+                methodRefs[newCall] = table.methodRefs[call];
+                int parent = table.nestingParents[call];
+                while (parent >= 0 && newCalls[parent] < 0) {
+                    parent = table.nestingParents[parent];
+                }
+                if (parent < 0) {
+                    nestingParents[newCall] = parent;
+                }
+                else {
+                    nestingParents[newCall] = newCalls[parent];
+                }
+                ++callsStart[callers[newCall] + 1];
+            }
+        }
+        for (int caller = 0; caller < methodCount; ++caller) {
+            callsStart[caller + 1] += callsStart[caller];
+        }
+    }
+
+    public int getCallCount() {
+        return callers.length;
+    }
+
+    /**
+     * First invocation of caller.
+     *
+     * @param caller initial index of caller
+     * @return index of first invocation
+     */
+    public int getCallsStart(int caller) {
+        return callsStart[caller];
+    }
+
+    /**
+     * Invocation following the last invocation of caller.
+     *
+     * @param caller initial index of caller
+     * @return index of invocation after the last one
+     */
+    public int getCallsEnd(int caller) {
+        return callsStart[caller + 1];
+    }
+
+    public int getCaller(int call) {
+        return callers[call];
+    }
+
+    public int getCallee(int call) {
+        return callees[call];
+    }
+
+    public int getLineNo(int call) {
+        return lineNos[call];
+    }
+
+    public int getColumnNo(int call) {
+        return columnNos[call];
+    }
+
+    public boolean isMethodRef(int call) {
+        return methodRefs[call];
+    }
+
+    public int getNestingParent(int call) {
+        return nestingParents[call];
+    }
+
+    public boolean isNestedInside(int inner, int outer) {
+        return isNestedInside(nestingParents, inner, outer);
+    }
+
+    /**
+     * Creates comparator of invocations in order of their appearance in code.
+     *
+     * @param lineTranslation translation of initial line numbers to line numbers in ordering
+     * @return comparator of invocation indices
+     */
+    public Comparator<Integer> getAppearanceOrder(IntUnaryOperator lineTranslation) {
+        return new AppearanceOrderComparator(lineNos, columnNos, nestingParents,
+            lineTranslation);
+    }
+
+    private static boolean isNestedInside(int[] nestingParents, int inner, int outer) {
+        boolean result = false;
+        for (int parent = nestingParents[inner]; parent >= 0;
+             parent = nestingParents[parent]) {
+            if (parent == outer) {
+                result = true;
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Orders invocations as they appear in code: nested invocations come before enclosing
+     * ones, others are ordered by their position in ordering given by line translation.
+     */
+    private static final class AppearanceOrderComparator implements Comparator<Integer> {
+
+        private final int[] lineNos;
+
+        private final int[] columnNos;
+
+        private final int[] nestingParents;
+
+        private final IntUnaryOperator lineTranslation;
+
+        private AppearanceOrderComparator(int[] lineNos, int[] columnNos, int[] nestingParents,
+                                          IntUnaryOperator lineTranslation) {
+            this.lineNos = lineNos;
+            this.columnNos = columnNos;
+            this.nestingParents = nestingParents;
+            this.lineTranslation = lineTranslation;
+        }
+
+        @Override
+        public int compare(Integer lhs, Integer rhs) {
+            final int result;
+            if (isNestedInside(nestingParents, lhs, rhs)) {
+                result = -1;
+            }
+            else if (isNestedInside(nestingParents, rhs, lhs)) {
+                result = 1;
+            }
+            else {
+                result = new CompareToBuilder()
+                    .append(lineTranslation.applyAsInt(lineNos[lhs]),
+                        lineTranslation.applyAsInt(lineNos[rhs]))
+                    .append(columnNos[lhs], columnNos[rhs])
+                    .toComparison();
+            }
+            return result;
+        }
+    }
+}
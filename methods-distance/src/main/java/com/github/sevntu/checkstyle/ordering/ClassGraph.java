@@ -0,0 +1,199 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.ordering;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.apache.commons.collections4.ListUtils;
+
+import com.github.sevntu.checkstyle.domain.Dependencies;
+import com.github.sevntu.checkstyle.domain.MethodDefinition;
+
+/**
+ * Immutable part of {@link MethodOrder} shared by all orderings of methods of a class:
+ * methods with their initial layout, invocations, call graph and method groups.
+ * Methods are identified by their initial index.
+ */
+final class ClassGraph {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final AtomicLong HASH_SEED_SEQUENCE = new AtomicLong();
+
+    private final List<Method> initialOrdering;
+
+    /** Sum of lengths of methods preceding each method in initial ordering. */
+    private final int[] initialLengthsBeforeIndex;
+
+    /** First and last lines of methods in initial ordering, start lines are sorted. */
+    private final int[] initialStartLineNos;
+
+    private final int[] initialEndLineNos;
+
+    private final CallTable callTable;
+
+    private final CallGraph callGraph;
+
+    private final MethodGroups methodGroups;
+
+    /** Seed of ordering hash keys, unique for each class graph. */
+    private final long hashSeed;
+
+    ClassGraph(Dependencies dependencies) {
+        this(getAllMethods(dependencies), dependencies);
+    }
+
+    private ClassGraph(Map<String, Method> methods, Dependencies dependencies) {
+        this(getInitialMethodOrdering(methods),
+            new CallTable(dependencies.getResolvedCalls(), methods));
+    }
+
+    private ClassGraph(List<Method> initialOrdering, CallTable callTable) {
+        this.initialOrdering = ListUtils.unmodifiableList(initialOrdering);
+        initialLengthsBeforeIndex = new int[initialOrdering.size() + 1];
+        for (int index = 0; index < initialOrdering.size(); ++index) {
+            initialLengthsBeforeIndex[index + 1] = initialLengthsBeforeIndex[index]
+                + initialOrdering.get(index).getLength();
+        }
+        initialStartLineNos = initialOrdering.stream().mapToInt(Method::getInitialLineNo).toArray();
+        initialEndLineNos = initialOrdering.stream()
+            .mapToInt(method -> method.getInitialLineNo() + method.getLength())
+            .toArray();
+        this.callTable = callTable;
+        callGraph = new CallGraph(initialOrdering, callTable);
+        methodGroups = new MethodGroups(initialOrdering);
+        hashSeed = mixBits(HASH_SEED_SEQUENCE.incrementAndGet());
+    }
+
+    /**
+     * Creates graph of given methods only, as if the class contained no other methods.
+     * Methods are copied with initial indices in their initial relative order, invocations
+     * of other methods are dropped.
+     *
+     * @param methods methods to keep
+     * @return graph of methods
+     */
+    public ClassGraph restrict(Collection<Method> methods) {
+        final BitSet kept = new BitSet(getMethodCount());
+        methods.forEach(method -> kept.set(method.getInitialIndex()));
+        final int[] newIndices = new int[getMethodCount()];
+        final List<Method> keptMethods = new ArrayList<>(methods.size());
+        for (int method = 0; method < newIndices.length; ++method) {
+            if (kept.get(method)) {
+                newIndices[method] = keptMethods.size();
+                keptMethods.add(new Method(getMethod(method), keptMethods.size()));
+            }
+            else {
+                newIndices[method] = -1;
+            }
+        }
+        return new ClassGraph(keptMethods,
+            new CallTable(callTable, newIndices, keptMethods.size()));
+    }
+
+    public int getMethodCount() {
+        return initialOrdering.size();
+    }
+
+    public Method getMethod(int method) {
+        return initialOrdering.get(method);
+    }
+
+    public List<Method> getInitialOrdering() {
+        return initialOrdering;
+    }
+
+    public int getInitialLengthBefore(int method) {
+        return initialLengthsBeforeIndex[method];
+    }
+
+    public int getInitialEndLineNo(int method) {
+        return initialEndLineNos[method];
+    }
+
+    public CallTable getCallTable() {
+        return callTable;
+    }
+
+    public CallGraph getCallGraph() {
+        return callGraph;
+    }
+
+    public MethodGroups getMethodGroups() {
+        return methodGroups;
+    }
+
+    /**
+     * Finds method which starts last among methods starting not after the line.
+     *
+     * @param lineNo line number in initial ordering
+     * @return initial index of method or -1 if all methods start after the line
+     */
+    public int findLastMethodStartingNotAfter(int lineNo) {
+        int low = 0;
+        int high = initialStartLineNos.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (initialStartLineNos[middle] <= lineNo) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low - 1;
+    }
+
+    /**
+     * Random key of method placed at index used by ordering hash. Keys are generated on
+     * demand from the seed instead of being stored in a table of size n * n.
+     *
+     * @param index index of method
+     * @param method initial index of method
+     * @return key of the pair
+     */
+    public long getPositionKey(int index, int method) {
+        final long pairIndex = (long) index * initialOrdering.size() + method;
+        return mixBits(hashSeed + (pairIndex + 1) * GOLDEN_GAMMA);
+    }
+
+    private static long mixBits(long value) {
+        long result = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        result = (result ^ (result >>> 27)) * 0x94D049BB133111EBL;
+        return result ^ (result >>> 31);
+    }
+
+    private static Map<String, Method> getAllMethods(Dependencies dependencies) {
+        return dependencies.getMethods().stream()
+            .collect(Collectors.toMap(MethodDefinition::getSignature, Method::new));
+    }
+
+    private static List<Method> getInitialMethodOrdering(Map<String, Method> methods) {
+        return methods.values().stream()
+            .sorted((lhs, rhs) -> Integer.compare(lhs.getInitialIndex(), rhs.getInitialIndex()))
+            .collect(Collectors.toList());
+    }
+}
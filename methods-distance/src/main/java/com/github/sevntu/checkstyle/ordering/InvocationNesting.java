@@ -0,0 +1,146 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.ordering;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+
+/**
+ * Nesting relation between method invocations.
+ * <p>
+ * Invocation is nested inside another invocation when one of its AST ancestors is located at
+ * the same line and column as the other invocation. Besides the invocation node itself, such
+ * ancestors are imaginary nodes which take position from their first child, so all of them
+ * form a chain of ancestors above the other invocation node. Thus invocation is nested inside
+ * another one when it is a descendant of the topmost node of that chain.
+ * </p>
+ * <p>
+ * Topmost nodes of distinct invocations are distinct, so the relation is a forest: nesting
+ * parent of invocation is the invocation which topmost node is the closest to it among its
+ * ancestors. Parents are found during one traversal of AST.
+ * </p>
+ */
+final class InvocationNesting {
+
+    private InvocationNesting() {
+    }
+
+    /**
+     * Finds nesting parent of each invocation.
+     *
+     * @param invocationNodes AST nodes of invocations
+     * @return index of nesting parent of each invocation or -1 if invocation is not nested
+     */
+    public static int[] getNestingParents(List<DetailAST> invocationNodes) {
+        final Map<DetailAST, Integer> invocations = new IdentityHashMap<>();
+        final Map<DetailAST, Integer> outermostNodes = new IdentityHashMap<>();
+        final Set<DetailAST> roots = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int invocation = 0; invocation < invocationNodes.size(); ++invocation) {
+            final DetailAST node = invocationNodes.get(invocation);
+            invocations.put(node, invocation);
+            outermostNodes.put(getOutermostNodeAtSamePosition(node), invocation);
+            roots.add(getRoot(node));
+        }
+        final int[] result = new int[invocationNodes.size()];
+        Arrays.fill(result, -1);
+        for (final DetailAST root : roots) {
+            findNestingParents(root, result, invocations, outermostNodes);
+        }
+        return result;
+    }
+
+    /**
+     * Traverses AST keeping stack of invocations which outermost nodes enclose current node.
+     *
+     * @param root root of AST
+     * @param nestingParents nesting parents to fill
+     * @param invocations invocations by their nodes
+     * @param outermostNodes invocations by their outermost nodes
+     */
+    private static void findNestingParents(DetailAST root, int[] nestingParents,
+                                           Map<DetailAST, Integer> invocations,
+                                           Map<DetailAST, Integer> outermostNodes) {
+        final Deque<Integer> enclosing = new ArrayDeque<>();
+        DetailAST node = root;
+        while (node != null) {
+            final Integer invocation = invocations.get(node);
+            if (invocation != null) {
+                nestingParents[invocation] = getClosestEnclosing(enclosing, invocation);
+            }
+            final Integer outermostInvocation = outermostNodes.get(node);
+            if (outermostInvocation != null) {
+                enclosing.push(outermostInvocation);
+            }
+            DetailAST next = node.getFirstChild();
+            while (next == null && node != null) {
+                if (outermostNodes.containsKey(node)) {
+                    enclosing.pop();
+                }
+                if (node == root) {
+                    node = null;
+                }
+                else {
+                    next = node.getNextSibling();
+                    if (next == null) {
+                        node = node.getParent();
+                    }
+                }
+            }
+            node = next;
+        }
+    }
+
+    private static int getClosestEnclosing(Deque<Integer> enclosing, int invocation) {
+        int result = -1;
+        for (final int enclosingInvocation : enclosing) {
+            if (enclosingInvocation != invocation) {
+                result = enclosingInvocation;
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static DetailAST getOutermostNodeAtSamePosition(DetailAST node) {
+        DetailAST result = node;
+        for (DetailAST parent = node.getParent(); parent != null
+            && parent.getLineNo() == node.getLineNo()
+            && parent.getColumnNo() == node.getColumnNo(); parent = parent.getParent()) {
+            result = parent;
+        }
+        return result;
+    }
+
+    private static DetailAST getRoot(DetailAST node) {
+        DetailAST result = node;
+        while (result.getParent() != null) {
+            result = result.getParent();
+        }
+        return result;
+    }
+}
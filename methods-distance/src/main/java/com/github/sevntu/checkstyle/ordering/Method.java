@@ -84,6 +84,32 @@ public class Method {
         length = methodDefinition.getLength();
     }
 
+    /**
+     * Copies method under another initial index, used by orderings of a subset of methods.
+     *
+     * @param method method to copy
+     * @param initialIndex initial index of copy
+     */
+    Method(Method method, int initialIndex) {
+        signature = method.signature;
+        this.initialIndex = initialIndex;
+        argCount = method.argCount;
+        varArg = method.varArg;
+        name = method.name;
+        instance = method.instance;
+        accessibility = method.accessibility;
+        override = method.override;
+        overloaded = method.overloaded;
+        setter = method.setter;
+        getter = method.getter;
+        accessiblePropertyName = method.accessiblePropertyName;
+        ctor = method.ctor;
+        returnsVoid = method.returnsVoid;
+        initialLineNo = method.initialLineNo;
+        columnNo = method.columnNo;
+        length = method.length;
+    }
+
     public boolean isVarArg() {
         return varArg;
     }
@@ -116,6 +142,10 @@ public class Method {
         return accessibility;
     }
 
+    public boolean isPrivate() {
+        return accessibility == MethodDefinition.Accessibility.PRIVATE;
+    }
+
     public boolean isOverride() {
         return override;
     }
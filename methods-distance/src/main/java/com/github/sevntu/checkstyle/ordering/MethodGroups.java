@@ -0,0 +1,100 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.ordering;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable groups of methods which are expected to be placed together: constructors,
+ * overridden methods, overloads of the same name and accessors of the same property.
+ * Groups of single method are omitted as they can not be split.
+ */
+final class MethodGroups {
+
+    private final int[] groupsStart;
+
+    private final int[] members;
+
+    private final Kind[] kinds;
+
+    MethodGroups(List<Method> initialOrdering) {
+        final List<List<Method>> groups = new ArrayList<>();
+        final List<Kind> groupKinds = new ArrayList<>();
+        addGroup(groups, groupKinds, Kind.CTOR, initialOrdering.stream()
+            .filter(Method::isCtor)
+            .collect(Collectors.toList()));
+        addGroup(groups, groupKinds, Kind.OVERRIDE, initialOrdering.stream()
+            .filter(Method::isOverride)
+            .collect(Collectors.toList()));
+        initialOrdering.stream()
+            .filter(method -> !method.isCtor())
+            .collect(Collectors.groupingBy(Method::getName))
+            .values()
+            .forEach(group -> addGroup(groups, groupKinds, Kind.OVERLOAD, group));
+        initialOrdering.stream()
+            .filter(method -> method.isGetter() || method.isSetter())
+            .collect(Collectors.groupingBy(Method::getAccessiblePropertyName))
+            .values()
+            .forEach(group -> addGroup(groups, groupKinds, Kind.ACCESSOR, group));
+        kinds = groupKinds.toArray(new Kind[groupKinds.size()]);
+        groupsStart = new int[groups.size() + 1];
+        for (int group = 0; group < groups.size(); ++group) {
+            groupsStart[group + 1] = groupsStart[group] + groups.get(group).size();
+        }
+        members = groups.stream()
+            .flatMap(Collection::stream)
+            .mapToInt(Method::getInitialIndex)
+            .toArray();
+    }
+
+    private static void addGroup(List<List<Method>> groups, List<Kind> groupKinds, Kind kind,
+                                 List<Method> group) {
+        if (group.size() > 1) {
+            groups.add(group);
+            groupKinds.add(kind);
+        }
+    }
+
+    public int getGroupCount() {
+        return kinds.length;
+    }
+
+    public Kind getKind(int group) {
+        return kinds[group];
+    }
+
+    public int getMembersCount(int group) {
+        return groupsStart[group + 1] - groupsStart[group];
+    }
+
+    public int getMember(int group, int position) {
+        return members[groupsStart[group] + position];
+    }
+
+    enum Kind {
+        CTOR,
+        OVERRIDE,
+        OVERLOAD,
+        ACCESSOR
+    }
+}
@@ -19,61 +19,94 @@
 
 package com.github.sevntu.checkstyle.ordering;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
-import java.util.function.Function;
-import java.util.function.Predicate;
+import java.util.RandomAccess;
 import java.util.stream.Collectors;
-
-import org.apache.commons.collections4.ListUtils;
-import org.apache.commons.collections4.MapUtils;
-import org.apache.commons.collections4.MultiMapUtils;
-import org.apache.commons.collections4.MultiValuedMap;
-import org.apache.commons.collections4.SetUtils;
-import org.apache.commons.collections4.SetValuedMap;
-import org.apache.commons.collections4.multimap.HashSetValuedHashMap;
-import org.apache.commons.lang.builder.CompareToBuilder;
+import java.util.stream.IntStream;
 
 import com.github.sevntu.checkstyle.domain.Dependencies;
 import com.github.sevntu.checkstyle.domain.MethodDefinition;
-import com.github.sevntu.checkstyle.domain.ResolvedCall;
 
+/**
+ * Ordering of methods of a class. Information about the class is shared by all orderings
+ * derived from the same instance, ordering itself is a permutation of initial indices of
+ * methods, so deriving a new ordering costs a few array copies.
+ */
 public class MethodOrder {
 
-    private final Map<String, Method> methods;
+    private final ClassGraph classGraph;
 
-    private final List<Method> currentOrdering;
+    private final CallTable callTable;
 
-    private final List<Method> initialOrdering;
+    private final CallGraph callGraph;
 
-    private final Set<MethodInvocation> invocations;
+    /** Initial index of method at each index of current ordering. */
+    private final int[] ordering;
 
-    private final MultiValuedMap<MethodInvocation, MethodInvocation> invocationNesting;
+    /** Current index of each method, indexed by {@link Method#getInitialIndex()}. */
+    private final int[] methodIndices;
 
-    public MethodOrder(Dependencies dependencies) {
-        methods = MapUtils.unmodifiableMap(getAllMethods(dependencies));
-        initialOrdering = ListUtils.unmodifiableList(getInitialMethodOrdering(methods));
-        currentOrdering = initialOrdering;
-        final Map<ResolvedCall, MethodInvocation> callsToInvocations =
-            getAllInvocations(dependencies, methods);
-        invocations = SetUtils.unmodifiableSet(new HashSet<>(callsToInvocations.values()));
-        invocationNesting = MultiMapUtils.unmodifiableMultiValuedMap(
-            getMethodInvocationsNesting(callsToInvocations));
-    }
+    /** Sum of lengths of methods preceding each index of current ordering. */
+    private final int[] lengthsBeforeIndex;
 
-    private MethodOrder(MethodOrder methodOrder, final List<Method> newMethodOrdering) {
-        currentOrdering = ListUtils.unmodifiableList(newMethodOrdering);
-        initialOrdering = methodOrder.initialOrdering;
-        methods = methodOrder.methods;
-        invocations = methodOrder.invocations;
-        invocationNesting = methodOrder.invocationNesting;
+    private final long orderingHash;
+
+    private final List<Method> currentOrdering = new MethodList();
+
+    public MethodOrder(Dependencies dependencies) {
+        this(new ClassGraph(dependencies));
+    }
+
+    private MethodOrder(ClassGraph classGraph) {
+        this(classGraph, IntStream.range(0, classGraph.getMethodCount()).toArray());
+    }
+
+    private MethodOrder(ClassGraph classGraph, int... ordering) {
+        this.classGraph = classGraph;
+        callTable = classGraph.getCallTable();
+        callGraph = classGraph.getCallGraph();
+        this.ordering = ordering;
+        methodIndices = new int[ordering.length];
+        lengthsBeforeIndex = new int[ordering.length + 1];
+        long hash = 0;
+        for (int index = 0; index < ordering.length; ++index) {
+            methodIndices[ordering[index]] = index;
+            lengthsBeforeIndex[index + 1] = lengthsBeforeIndex[index]
+                + classGraph.getMethod(ordering[index]).getLength();
+            hash ^= classGraph.getPositionKey(index, ordering[index]);
+        }
+        orderingHash = hash;
+    }
+
+    /**
+     * Creates ordering which differs from the given one inside the window of indices only.
+     *
+     * @param methodOrder original ordering
+     * @param ordering new permutation
+     * @param fromIndex first changed index
+     * @param toIndex last changed index
+     */
+    private MethodOrder(MethodOrder methodOrder, int[] ordering, int fromIndex, int toIndex) {
+        classGraph = methodOrder.classGraph;
+        callTable = methodOrder.callTable;
+        callGraph = methodOrder.callGraph;
+        this.ordering = ordering;
+        methodIndices = methodOrder.methodIndices.clone();
+        lengthsBeforeIndex = methodOrder.lengthsBeforeIndex.clone();
+        long hash = methodOrder.orderingHash;
+        for (int index = fromIndex; index <= toIndex; ++index) {
+            methodIndices[ordering[index]] = index;
+            lengthsBeforeIndex[index + 1] = lengthsBeforeIndex[index]
+                + classGraph.getMethod(ordering[index]).getLength();
+            hash ^= classGraph.getPositionKey(index, methodOrder.ordering[index])
+                ^ classGraph.getPositionKey(index, ordering[index]);
+        }
+        orderingHash = hash;
     }
 
     public List<Method> getMethods() {
@@ -81,21 +114,29 @@ public class MethodOrder {
     }
 
     public int getMethodIndex(Method method) {
-        return currentOrdering.indexOf(method);
+        return methodIndices[method.getInitialIndex()];
     }
 
     public Method getMethodByInitialIndex(int index) {
-        return initialOrdering.get(index);
+        return classGraph.getMethod(index);
+    }
+
+    /**
+     * Zobrist-style hash of ordering: xor of random keys of (index, method) pairs. Orderings
+     * derived from the same instance have equal hashes when methods are in the same order.
+     * Hash is maintained incrementally by {@link #moveMethodBy} and {@link #swapMethods}.
+     *
+     * @return hash of current ordering
+     */
+    public long getOrderingHash() {
+        return orderingHash;
     }
 
     public MethodOrder moveMethodBy(Method method, int indexShift) {
         final int currentIndex = getMethodIndex(method);
         final int newIndex = currentIndex + indexShift;
-        if (0 <= newIndex && newIndex < methods.size()) {
-            final ArrayList<Method> newOrdering = new ArrayList<>(currentOrdering);
-            newOrdering.remove(currentIndex);
-            newOrdering.add(newIndex, method);
-            return new MethodOrder(this, newOrdering);
+        if (0 <= newIndex && newIndex < ordering.length) {
+            return moveBlock(currentIndex, 1, indexShift);
         }
         else {
             throw new IllegalArgumentException(String.format(
@@ -103,10 +144,79 @@ public class MethodOrder {
         }
     }
 
+    /**
+     * Moves contiguous block of methods by given number of positions keeping their order.
+     *
+     * @param firstMethod first method of block
+     * @param methodsCount number of methods in block
+     * @param indexShift number of positions to move block by
+     * @return new ordering
+     */
+    public MethodOrder moveMethodsBy(Method firstMethod, int methodsCount, int indexShift) {
+        final int firstIndex = getMethodIndex(firstMethod);
+        final int newFirstIndex = firstIndex + indexShift;
+        if (methodsCount > 0 && firstIndex + methodsCount <= ordering.length
+            && 0 <= newFirstIndex && newFirstIndex + methodsCount <= ordering.length) {
+            return moveBlock(firstIndex, methodsCount, indexShift);
+        }
+        else {
+            throw new IllegalArgumentException(String.format(
+                "Trying to move %d methods starting at #%d by %d positions",
+                methodsCount, firstIndex, indexShift));
+        }
+    }
+
+    public MethodOrder swapMethods(Method first, Method second) {
+        final int firstIndex = getMethodIndex(first);
+        final int secondIndex = getMethodIndex(second);
+        final int[] newOrdering = ordering.clone();
+        newOrdering[firstIndex] = ordering[secondIndex];
+        newOrdering[secondIndex] = ordering[firstIndex];
+        return new MethodOrder(this, newOrdering, Math.min(firstIndex, secondIndex),
+            Math.max(firstIndex, secondIndex));
+    }
+
+    /**
+     * Rearranges methods inside window of consecutive indices.
+     *
+     * @param fromIndex first index of window
+     * @param methods methods of window in new order
+     * @return new ordering
+     */
+    public MethodOrder reorderWindow(int fromIndex, List<Method> methods) {
+        final int toIndex = fromIndex + methods.size() - 1;
+        final int[] newOrdering = ordering.clone();
+        final BitSet present = new BitSet(methods.size());
+        for (int position = 0; position < methods.size(); ++position) {
+            final int methodIndex = getMethodIndex(methods.get(position));
+            if (methodIndex >= fromIndex && methodIndex <= toIndex) {
+                present.set(methodIndex - fromIndex);
+            }
+            newOrdering[fromIndex + position] = methods.get(position).getInitialIndex();
+        }
+        if (present.cardinality() == methods.size()) {
+            return new MethodOrder(this, newOrdering, fromIndex, toIndex);
+        }
+        else {
+            throw new IllegalArgumentException("Window at #" + fromIndex
+                + " contains another set of methods: " + methodsSignatureList(methods));
+        }
+    }
+
     public MethodOrder reorder(List<Method> order) {
-        final boolean allMethodsPresent = currentOrdering.stream().allMatch(order::contains);
-        if (allMethodsPresent && currentOrdering.size() == order.size()) {
-            return new MethodOrder(this, new ArrayList<>(order));
+        final int[] newOrdering = new int[order.size()];
+        final BitSet present = new BitSet(ordering.length);
+        for (int index = 0; index < newOrdering.length; ++index) {
+            final Method method = order.get(index);
+            final int methodIndex = method.getInitialIndex();
+            if (methodIndex >= 0 && methodIndex < ordering.length
+                && classGraph.getMethod(methodIndex).equals(method)) {
+                present.set(methodIndex);
+            }
+            newOrdering[index] = methodIndex;
+        }
+        if (present.cardinality() == ordering.length && order.size() == ordering.length) {
+            return new MethodOrder(classGraph, newOrdering);
         }
         else {
             final String currentOrderingString = methodsSignatureList(currentOrdering);
@@ -117,17 +227,75 @@ public class MethodOrder {
         }
     }
 
+    /**
+     * Creates ordering of given methods only, as if the class contained no other methods.
+     * Methods of the new ordering are equal to given ones but have other initial indices,
+     * invocations of other methods are dropped.
+     *
+     * @param methods distinct methods of this ordering in order of the new one
+     * @return ordering of methods
+     */
+    public MethodOrder restrict(List<Method> methods) {
+        final int[] initialIndices = methods.stream()
+            .filter(method -> method.getInitialIndex() < ordering.length
+                && classGraph.getMethod(method.getInitialIndex()).equals(method))
+            .mapToInt(Method::getInitialIndex)
+            .sorted()
+            .distinct()
+            .toArray();
+        if (initialIndices.length == methods.size()) {
+            final int[] newOrdering = methods.stream()
+                .mapToInt(method -> Arrays.binarySearch(initialIndices, method.getInitialIndex()))
+                .toArray();
+            return new MethodOrder(classGraph.restrict(methods), newOrdering);
+        }
+        else {
+            throw new IllegalArgumentException("Methods are not distinct methods of class: "
+                + methodsSignatureList(methods));
+        }
+    }
+
+    private MethodOrder moveBlock(int firstIndex, int methodsCount, int indexShift) {
+        final int newFirstIndex = firstIndex + indexShift;
+        final int[] newOrdering = ordering.clone();
+        if (indexShift < 0) {
+            System.arraycopy(ordering, newFirstIndex, newOrdering, newFirstIndex + methodsCount,
+                -indexShift);
+        }
+        else {
+            System.arraycopy(ordering, firstIndex + methodsCount, newOrdering, firstIndex,
+                indexShift);
+        }
+        System.arraycopy(ordering, firstIndex, newOrdering, newFirstIndex, methodsCount);
+        return new MethodOrder(this, newOrdering, Math.min(firstIndex, newFirstIndex),
+            Math.max(firstIndex, newFirstIndex) + methodsCount - 1);
+    }
+
     private static String methodsSignatureList(Collection<Method> methods) {
         return methods.stream().map(Object::toString).collect(Collectors.joining("; ", "[", "]"));
     }
 
     public List<Method> getMethodDependenciesInAppearanceOrder(Method caller) {
-        return invocations.stream()
-            .filter(methodInvocation -> methodInvocation.getCaller().equals(caller))
-            .sorted(new AppearanceOrderMethodInvocationComparator())
-            .filter(new UniqueCallerCalleeMethodInvocationFilter())
-            .map(MethodInvocation::getCallee)
-            .collect(Collectors.toList());
+        final int callerIndex = caller.getInitialIndex();
+        final List<Method> result;
+        if (callGraph.isLayoutDependent(callerIndex)) {
+            result = IntStream.range(callTable.getCallsStart(callerIndex),
+                    callTable.getCallsEnd(callerIndex))
+                .boxed()
+                .sorted(callTable.getAppearanceOrder(this::translateInitialLineNo))
+                .mapToInt(callTable::getCallee)
+                .distinct()
+                .mapToObj(classGraph::getMethod)
+                .collect(Collectors.toList());
+        }
+        else {
+            final int dependenciesCount = callGraph.getDependenciesCount(callerIndex);
+            result = new ArrayList<>(dependenciesCount);
+            for (int position = 0; position < dependenciesCount; ++position) {
+                result.add(classGraph.getMethod(callGraph.getDependency(callerIndex, position)));
+            }
+        }
+        return result;
     }
 
     public List<Integer> getMethodDependenciesIndexesInAppearanceOrder(Method caller) {
@@ -137,19 +305,47 @@ public class MethodOrder {
     }
 
     public boolean hasMethodDependencies(Method method) {
-        return !getMethodDependenciesInAppearanceOrder(method).isEmpty();
+        return callGraph.getDependenciesCount(method.getInitialIndex()) > 0;
     }
 
     public List<Method> getMethodDependants(Method callee) {
-        return invocations.stream()
-            .filter(methodInvocation -> methodInvocation.getCallee().equals(callee))
-            .filter(new UniqueCallerCalleeMethodInvocationFilter())
-            .map(MethodInvocation::getCaller)
-            .collect(Collectors.toList());
+        final int calleeIndex = callee.getInitialIndex();
+        final int dependantsCount = callGraph.getDependantsCount(calleeIndex);
+        final List<Method> result = new ArrayList<>(dependantsCount);
+        for (int position = 0; position < dependantsCount; ++position) {
+            result.add(classGraph.getMethod(callGraph.getDependant(calleeIndex, position)));
+        }
+        return result;
+    }
+
+    /**
+     * Collects methods which share constructors, overrides, overloads or accessors group with
+     * given method.
+     *
+     * @param method method
+     * @return other members of groups of method
+     */
+    public List<Method> getGroupMates(Method method) {
+        final MethodGroups methodGroups = classGraph.getMethodGroups();
+        final List<Method> result = new ArrayList<>();
+        for (int group = 0; group < methodGroups.getGroupCount(); ++group) {
+            final int membersCount = methodGroups.getMembersCount(group);
+            boolean isMember = false;
+            for (int position = 0; position < membersCount; ++position) {
+                isMember |= methodGroups.getMember(group, position) == method.getInitialIndex();
+            }
+            for (int position = 0; isMember && position < membersCount; ++position) {
+                final int member = methodGroups.getMember(group, position);
+                if (member != method.getInitialIndex()) {
+                    result.add(classGraph.getMethod(member));
+                }
+            }
+        }
+        return result;
     }
 
     public boolean hasMethodDependants(Method method) {
-        return !getMethodDependants(method).isEmpty();
+        return callGraph.getDependantsCount(method.getInitialIndex()) > 0;
     }
 
     public boolean isInterfaceMethod(Method method) {
@@ -159,11 +355,7 @@ public class MethodOrder {
     }
 
     public boolean isMethodDependsOn(Method caller, Method callee) {
-        return invocations.stream()
-            .anyMatch(methodInvocation -> {
-                return methodInvocation.getCaller().equals(caller)
-                        && methodInvocation.getCallee().equals(callee);
-            });
+        return callGraph.isMethodDependsOn(caller.getInitialIndex(), callee.getInitialIndex());
     }
 
     public int getMethodsIndexDifference(Method caller, Method callee) {
@@ -176,259 +368,107 @@ public class MethodOrder {
     }
 
     public int getTotalSumOfMethodDistances() {
-        return currentOrdering.stream()
-            .collect(Collectors.summingInt(caller -> {
-                return getMethodDependenciesInAppearanceOrder(caller)
-                    .stream()
-                    .collect(Collectors.summingInt(callee -> {
-                        return Math.abs(getMethodsIndexDifference(caller, callee));
-                    }));
-            }));
+        return evaluate(0).getTotalSumOfMethodDistances();
     }
 
     public int getDeclarationBeforeUsageCases() {
-        return (int) invocations.stream()
-            .filter(new UniqueCallerCalleeMethodInvocationFilter())
-            .filter(invocation -> {
-                return getMethodsIndexDifference(invocation.getCaller(),
-                    invocation.getCallee()) < 0;
-            })
-            .count();
+        return evaluate(0).getDeclarationBeforeUsageCases();
     }
 
     public int getCtorGroupsSplitCases() {
-        final int result;
-        final List<Method> constructors = currentOrdering.stream()
-            .filter(Method::isCtor)
-            .collect(Collectors.toList());
-        if (constructors.isEmpty()) {
-            result = 0;
-        }
-        else {
-            result = getMethodGroupSplitCount(constructors);
-        }
-        return result;
+        return evaluate(0).getGroupSplitCases(MethodGroups.Kind.CTOR);
     }
 
     public int getOverrideGroupSplitCases() {
-        final int result;
-        final List<Method> overrideMethods = currentOrdering.stream()
-            .filter(Method::isOverride)
-            .collect(Collectors.toList());
-        if (overrideMethods.isEmpty()) {
-            result = 0;
-        }
-        else {
-            result = getMethodGroupSplitCount(overrideMethods);
-        }
-        return result;
+        return evaluate(0).getGroupSplitCases(MethodGroups.Kind.OVERRIDE);
     }
 
     public int getOverloadGroupsSplitCases() {
-        return currentOrdering.stream()
-            .filter(method -> !method.isCtor())
-            .collect(Collectors.groupingBy(Method::getName))
-            .values().stream()
-            .collect(Collectors.summingInt(this::getMethodGroupSplitCount));
+        return evaluate(0).getGroupSplitCases(MethodGroups.Kind.OVERLOAD);
     }
 
     public int getDependenciesBetweenDistantMethodsCases(int screenLinesCount) {
-        return invocations.stream()
-            .collect(Collectors.groupingBy(MethodInvocation::getCaller))
-            .values().stream()
-            .collect(Collectors.summingInt(callerInvocations -> {
-                return isBiggerThanScreenLinesCount(screenLinesCount, callerInvocations);
-            }));
+        return evaluate(screenLinesCount).getDependenciesBetweenDistantMethodsCases();
     }
 
     public int getAccessorsSplitCases() {
-        return currentOrdering.stream()
-            .filter(method -> method.isGetter() || method.isSetter())
-            .collect(Collectors.groupingBy(Method::getAccessiblePropertyName))
-            .values().stream()
-            .collect(Collectors.summingInt(this::getMethodGroupSplitCount));
+        return evaluate(0).getGroupSplitCases(MethodGroups.Kind.ACCESSOR);
     }
 
     public int getRelativeOrderInconsistencyCases() {
-        return getMethods().stream()
-            .collect(Collectors.summingInt(this::countViolations));
-    }
-
-    private int countViolations(Method caller) {
-        int maxCalleeIndex = 0;
-        int orderViolations = 0;
-        for (final Method callee : getMethodDependenciesInAppearanceOrder(caller)) {
-            final int calleeIndex = getMethodIndex(callee);
-            if (calleeIndex < maxCalleeIndex) {
-                ++orderViolations;
-            }
-            else {
-                maxCalleeIndex = calleeIndex;
+        return evaluate(0).getRelativeOrderInconsistencyCases();
+    }
+
+    ClassGraph getClassGraph() {
+        return classGraph;
+    }
+
+    /**
+     * Gets method placed at index.
+     *
+     * @param index index in current ordering
+     * @return initial index of method
+     */
+    int getMethodAt(int index) {
+        return ordering[index];
+    }
+
+    /**
+     * Gets index of method.
+     *
+     * @param method initial index of method
+     * @return index in current ordering
+     */
+    int getIndexOf(int method) {
+        return methodIndices[method];
+    }
+
+    private PenaltyEvaluator evaluate(int screenLinesCount) {
+        final PenaltyEvaluator evaluator = new PenaltyEvaluator();
+        evaluator.evaluate(this, screenLinesCount, 0, ordering.length - 1);
+        return evaluator;
+    }
+
+    /**
+     * Translates line number in initial ordering to line number in current ordering.
+     * Method enclosing the line is found by binary search over initial start lines. Methods
+     * may share their boundary lines, in such case method which comes first in current
+     * ordering is taken.
+     *
+     * @param lineNo line number in initial ordering
+     * @return line number in current ordering
+     */
+    int translateInitialLineNo(int lineNo) {
+        int enclosingMethod = classGraph.findLastMethodStartingNotAfter(lineNo);
+        if (enclosingMethod < 0 || classGraph.getInitialEndLineNo(enclosingMethod) < lineNo) {
+            throw new IllegalArgumentException(
+                String.format("Line #%d does lies within any method", lineNo));
+        }
+        for (int candidate = enclosingMethod - 1;
+             candidate >= 0 && classGraph.getInitialEndLineNo(candidate) >= lineNo; --candidate) {
+            if (methodIndices[candidate] < methodIndices[enclosingMethod]) {
+                enclosingMethod = candidate;
             }
         }
-        return orderViolations;
-    }
-
-    private int isBiggerThanScreenLinesCount(int screenLinesCount,
-                                             List<MethodInvocation> callerInvocations) {
-        return (int) callerInvocations.stream()
-            .filter(invocation -> {
-                final int invocationLineNo =
-                    translateInitialLineNo(invocation.getInitialLineNo());
-                final int calleeLineNo =
-                    translateInitialLineNo(invocation
-                        .getCallee().getInitialLineNo());
-                return Math.abs(calleeLineNo - invocationLineNo) > screenLinesCount;
-            })
-            .filter(new UniqueCallerCalleeMethodInvocationFilter())
-            .count();
-    }
-
-    private int getMethodGroupSplitCount(Collection<Method> methodGroup) {
-        final List<Integer> methodIndices = methodGroup.stream()
-            .map(this::getMethodIndex)
-            .collect(Collectors.toList());
-        final MinMax<Integer> bounds = minMax(methodIndices);
-        return bounds.getMax() - bounds.getMin() - methodIndices.size() + 1;
-    }
-
-    private int translateInitialLineNo(int lineNo) {
-        return currentOrdering.stream()
-            .filter(method -> {
-                final int start = method.getInitialLineNo();
-                final int end = start + method.getLength();
-                return start <= lineNo && lineNo <= end;
-            })
-            .findFirst()
-            .map(method -> getLineCount(lineNo, method))
-            .orElseThrow(() -> {
-                return new IllegalArgumentException(
-                    String.format("Line #%d does lies within any method", lineNo));
-            });
-    }
-
-    private Integer getLineCount(int lineNo, Method method) {
-        final int initialMethodIndex = initialOrdering.indexOf(method);
-        final int currentMethodIndex = currentOrdering.indexOf(method);
-        final int sumOfLengthsPresidingMethodsInInitialOrder = initialOrdering
-            .subList(0, initialMethodIndex).stream()
-            .collect(Collectors.summingInt(Method::getLength));
-        final int sumOfLengthsPresidingMethodInCurrentOrder = currentOrdering
-            .subList(0, currentMethodIndex).stream()
-            .collect(Collectors.summingInt(Method::getLength));
-        final int change = sumOfLengthsPresidingMethodInCurrentOrder
-            - sumOfLengthsPresidingMethodsInInitialOrder;
-        return lineNo + change;
-    }
-
-    private static Map<String, Method> getAllMethods(Dependencies dependencies) {
-        return dependencies.getMethods().stream()
-            .collect(Collectors.toMap(MethodDefinition::getSignature, Method::new));
-    }
-
-    private static Map<ResolvedCall, MethodInvocation> getAllInvocations(
-        Dependencies dependencies, Map<String, Method> methods) {
-
-        return dependencies.getResolvedCalls().stream()
-        .collect(Collectors.toMap(Function.identity(), resolvedCall -> {
-            final String callerSignature = resolvedCall.getCaller().getSignature();
-            final String calleeSignature = resolvedCall.getCallee().getSignature();
-            return new MethodInvocation(resolvedCall,
-                methods.get(callerSignature), methods.get(calleeSignature));
-        }));
+        return getLineCount(lineNo, enclosingMethod);
     }
 
-    private static MultiValuedMap<MethodInvocation, MethodInvocation> getMethodInvocationsNesting(
-        Map<ResolvedCall, MethodInvocation> callToInvocation) {
-
-        final SetValuedMap<MethodInvocation, MethodInvocation> nestedInside =
-            new HashSetValuedHashMap<>();
-        callToInvocation.entrySet().stream()
-            .forEach(entry -> {
-                final ResolvedCall resolvedCall = entry.getKey();
-                final MethodInvocation methodInvocation = entry.getValue();
-                callToInvocation.keySet().stream()
-                    .filter(call -> !call.equals(resolvedCall))
-                    .filter(resolvedCall::isNestedInside)
-                    .forEach(call -> {
-                        nestedInside.put(methodInvocation, callToInvocation.get(call));
-                    });
-            });
-        return nestedInside;
-    }
-
-    private static List<Method> getInitialMethodOrdering(Map<String, Method> methods) {
-        return methods.values().stream()
-            .sorted((lhs, rhs) -> Integer.compare(lhs.getInitialIndex(), rhs.getInitialIndex()))
-            .collect(Collectors.toList());
-    }
-
-    private static <T> MinMax<T> minMax(Collection<T> elements) {
-        final SortedSet<T> sortedSet = new TreeSet<>(elements);
-        return new MinMax<>(sortedSet.first(), sortedSet.last());
-    }
-
-    private static final class MinMax<T> {
-
-        private final T min;
-
-        private final T max;
-
-        private MinMax(T min, T max) {
-            this.min = min;
-            this.max = max;
-        }
-
-        public T getMin() {
-            return min;
-        }
-
-        public T getMax() {
-            return max;
-        }
+    private int getLineCount(int lineNo, int methodInitialIndex) {
+        final int change = lengthsBeforeIndex[methodIndices[methodInitialIndex]]
+            - classGraph.getInitialLengthBefore(methodInitialIndex);
+        return lineNo + change;
     }
 
-    private final class AppearanceOrderMethodInvocationComparator
-        implements Comparator<MethodInvocation> {
+    private final class MethodList extends AbstractList<Method> implements RandomAccess {
 
         @Override
-        public int compare(MethodInvocation lhs, MethodInvocation rhs) {
-            final int result;
-            if (invocationNesting.containsMapping(lhs, rhs)) {
-                result = -1;
-            }
-            else if (invocationNesting.containsMapping(rhs, lhs)) {
-                result = 1;
-            }
-            else {
-                result = new CompareToBuilder()
-                    .append(translateInitialLineNo(lhs.getInitialLineNo()),
-                        translateInitialLineNo(rhs.getInitialLineNo()))
-                    .append(lhs.getColumnNo(), rhs.getColumnNo())
-                    .toComparison();
-            }
-            return result;
+        public Method get(int index) {
+            return classGraph.getMethod(ordering[index]);
         }
-    }
-
-    private static final class UniqueCallerCalleeMethodInvocationFilter
-        implements Predicate<MethodInvocation> {
-
-        private final Set<MethodInvocation> set = new TreeSet<>(new Comparator<MethodInvocation>() {
-            @Override
-            public int compare(MethodInvocation lhs, MethodInvocation rhs) {
-                return new CompareToBuilder()
-                    .append(lhs.getCaller().getSignature(), rhs.getCaller().getSignature())
-                    .append(lhs.getCallee().getSignature(), rhs.getCallee().getSignature())
-                    .toComparison();
-            }
-        });
 
-        /* This class is not unit test. Method name similarity is just accidence. */
-        @SuppressWarnings("PMD.JUnit4TestShouldUseTestAnnotation")
         @Override
-        public boolean test(MethodInvocation methodInvocation) {
-            return set.add(methodInvocation);
+        public int size() {
+            return ordering.length;
         }
     }
 }
@@ -0,0 +1,86 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.ordering;
+
+/**
+ * Penalty of ordering together with lower bound of penalty of any ordering of the same
+ * methods. Relative gap between them bounds the improvement any reordering can achieve.
+ */
+public final class OptimalityGap {
+
+    /** Relative error of float sums tolerated when lower bound is compared with penalty. */
+    private static final float ROUNDING_TOLERANCE = 1e-5f;
+
+    private final float penalty;
+
+    private final float lowerBound;
+
+    /**
+     * Creates gap between penalty and its lower bound.
+     *
+     * @param penalty penalty of ordering
+     * @param lowerBound lower bound of penalty
+     * @throws IllegalArgumentException if lower bound exceeds penalty, that is bound is not
+     *     admissible
+     */
+    OptimalityGap(float penalty, float lowerBound) {
+        if (lowerBound - penalty > ROUNDING_TOLERANCE * Math.max(1, Math.abs(penalty))) {
+            throw new IllegalArgumentException(String.format(
+                "Lower bound %f exceeds penalty %f", lowerBound, penalty));
+        }
+        this.penalty = penalty;
+        this.lowerBound = lowerBound;
+    }
+
+    public float getPenalty() {
+        return penalty;
+    }
+
+    public float getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Share of penalty which might be removed by reordering, zero for ordering known to be
+     * optimal.
+     *
+     * @return gap relative to penalty, from 0 to 1
+     */
+    public float getGap() {
+        final float result;
+        if (penalty > 0 && !isOptimal()) {
+            result = (penalty - lowerBound) / penalty;
+        }
+        else {
+            result = 0;
+        }
+        return result;
+    }
+
+    public boolean isOptimal() {
+        return lowerBound >= penalty;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("penalty %.2f, lower bound %.2f, gap %.1f%%", penalty, lowerBound,
+            getGap() * 100);
+    }
+}
@@ -0,0 +1,103 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.ordering;
+
+/**
+ * Value of penalty function of ordering together with counts of each of its metrics.
+ */
+public final class PenaltyBreakdown {
+
+    private final int totalSumOfMethodDistances;
+
+    private final int declarationBeforeUsageCases;
+
+    private final int ctorGroupsSplitCases;
+
+    private final int overloadGroupsSplitCases;
+
+    private final int overrideGroupSplitCases;
+
+    private final int accessorsSplitCases;
+
+    private final int relativeOrderInconsistencyCases;
+
+    private final int dependenciesBetweenDistantMethodsCases;
+
+    private final float penalty;
+
+    PenaltyBreakdown(PenaltyEvaluator evaluator, float penalty) {
+        totalSumOfMethodDistances = evaluator.getTotalSumOfMethodDistances();
+        declarationBeforeUsageCases = evaluator.getDeclarationBeforeUsageCases();
+        ctorGroupsSplitCases = evaluator.getGroupSplitCases(MethodGroups.Kind.CTOR);
+        overloadGroupsSplitCases = evaluator.getGroupSplitCases(MethodGroups.Kind.OVERLOAD);
+        overrideGroupSplitCases = evaluator.getGroupSplitCases(MethodGroups.Kind.OVERRIDE);
+        accessorsSplitCases = evaluator.getGroupSplitCases(MethodGroups.Kind.ACCESSOR);
+        relativeOrderInconsistencyCases = evaluator.getRelativeOrderInconsistencyCases();
+        dependenciesBetweenDistantMethodsCases =
+            evaluator.getDependenciesBetweenDistantMethodsCases();
+        this.penalty = penalty;
+    }
+
+    public int getTotalSumOfMethodDistances() {
+        return totalSumOfMethodDistances;
+    }
+
+    public int getDeclarationBeforeUsageCases() {
+        return declarationBeforeUsageCases;
+    }
+
+    public int getCtorGroupsSplitCases() {
+        return ctorGroupsSplitCases;
+    }
+
+    public int getOverloadGroupsSplitCases() {
+        return overloadGroupsSplitCases;
+    }
+
+    public int getOverrideGroupSplitCases() {
+        return overrideGroupSplitCases;
+    }
+
+    public int getAccessorsSplitCases() {
+        return accessorsSplitCases;
+    }
+
+    public int getRelativeOrderInconsistencyCases() {
+        return relativeOrderInconsistencyCases;
+    }
+
+    public int getDependenciesBetweenDistantMethodsCases() {
+        return dependenciesBetweenDistantMethodsCases;
+    }
+
+    public float getPenalty() {
+        return penalty;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("penalty %.2f: distances %d, declaration before usage %d, "
+            + "ctor splits %d, overload splits %d, override splits %d, accessor splits %d, "
+            + "relative order inconsistencies %d, distant dependencies %d", penalty,
+            totalSumOfMethodDistances, declarationBeforeUsageCases, ctorGroupsSplitCases,
+            overloadGroupsSplitCases, overrideGroupSplitCases, accessorsSplitCases,
+            relativeOrderInconsistencyCases, dependenciesBetweenDistantMethodsCases);
+    }
+}
@@ -19,8 +19,16 @@
 
 package com.github.sevntu.checkstyle.ordering;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
 public class PenaltyCalculator {
 
+    public static final int DEFAULT_PENALTY_CACHE_CAPACITY = 4096;
+
     public static final int DEFAULT_CTOR_GROUP_DIVISION_PENALTY = 4;
 
     public static final int DEFAULT_OVERRIDE_GROUP_DIVISION_PENALTY = 3;
@@ -50,24 +58,262 @@ public class PenaltyCalculator {
     private float dependenciesBetweenDistantMethodsPenalty =
         DEFAULT_DISTANT_METHODS_DEPENDENCIES_PENALTY;
 
+    private int penaltyCacheCapacity = DEFAULT_PENALTY_CACHE_CAPACITY;
+
+    /**
+     * Least recently used penalties of each thread, so parallel evaluations do not contend on
+     * a lock.
+     */
+    private final ThreadLocal<PenaltyCache> penaltyCache =
+        ThreadLocal.withInitial(PenaltyCache::new);
+
+    /** Incremented to invalidate caches of all threads. */
+    private final AtomicInteger penaltyCacheGeneration = new AtomicInteger();
+
+    private final ThreadLocal<PenaltyEvaluator> evaluator =
+        ThreadLocal.withInitial(PenaltyEvaluator::new);
+
+    private final LongAdder penaltyCacheHits = new LongAdder();
+
+    private final LongAdder penaltyCacheMisses = new LongAdder();
+
     public float getPenalty(MethodOrder dep, int screenLinesCount) {
-        return dep.getTotalSumOfMethodDistances()
-            + dep.getDeclarationBeforeUsageCases() * declarationBeforeFirstUsagePenalty
-            + dep.getCtorGroupsSplitCases() * ctorGroupDivisionPenalty
-            + dep.getOverloadGroupsSplitCases() * overloadGroupDivisionPenalty
-            + dep.getOverrideGroupSplitCases() * overrideGroupDivisionPenalty
-            + dep.getAccessorsSplitCases() * accessorsGroupDivisionPenalty
-            + dep.getRelativeOrderInconsistencyCases() * relativeOrderInconsistencyPenalty
-            + dep.getDependenciesBetweenDistantMethodsCases(screenLinesCount)
+        return getPenaltyBreakdown(dep, screenLinesCount).getPenalty();
+    }
+
+    /**
+     * Calculates penalty of ordering together with counts of its metrics. Results are cached
+     * by class and {@link MethodOrder#getOrderingHash()}, so evaluating the same ordering
+     * again is a lookup.
+     *
+     * @param dep ordering
+     * @param screenLinesCount estimated line count that fit on screen at once
+     * @return penalty of ordering
+     */
+    public PenaltyBreakdown getPenaltyBreakdown(MethodOrder dep, int screenLinesCount) {
+        final CacheKey key = new CacheKey(dep, screenLinesCount);
+        PenaltyBreakdown result = getCachedBreakdown(key);
+        if (result == null) {
+            result = getPenaltyBreakdown(dep, screenLinesCount, 0, dep.getMethods().size() - 1);
+            cacheBreakdown(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Calculates penalty of ordering unless it exceeds the upper bound. This is enough to
+     * compare ordering with the best one known so far: evaluation stops as soon as partial
+     * penalty exceeds the bound. Cheapest metrics are counted first and metrics with zero
+     * weight are skipped. Weights are expected to be non-negative.
+     *
+     * @param dep ordering
+     * @param screenLinesCount estimated line count that fit on screen at once
+     * @param upperBound upper bound of penalty
+     * @return penalty of ordering if it does not exceed the bound, otherwise some value which
+     *     exceeds the bound
+     */
+    public float getPenalty(MethodOrder dep, int screenLinesCount, float upperBound) {
+        final CacheKey key = new CacheKey(dep, screenLinesCount);
+        final PenaltyBreakdown cached = getCachedBreakdown(key);
+        final float result;
+        if (cached == null) {
+            final PenaltyEvaluator penaltyEvaluator = evaluator.get();
+            result = penaltyEvaluator.evaluate(dep, screenLinesCount, this, upperBound);
+            if (penaltyEvaluator.isComplete()) {
+                cacheBreakdown(key, new PenaltyBreakdown(penaltyEvaluator, result));
+            }
+        }
+        else {
+            result = cached.getPenalty();
+        }
+        return result;
+    }
+
+    /**
+     * Calculates change of penalty caused by moving method by given number of positions.
+     * Only methods between old and new index of the moved method, their dependencies and
+     * groups are evaluated.
+     *
+     * @param methodOrder ordering to change
+     * @param method method to move
+     * @param indexShift number of positions to move method by
+     * @param screenLinesCount estimated line count that fit on screen at once
+     * @return penalty of changed ordering minus penalty of given ordering
+     */
+    public float getMoveDelta(MethodOrder methodOrder, Method method, int indexShift,
+                              int screenLinesCount) {
+        return getMoveDelta(methodOrder, method, 1, indexShift, screenLinesCount);
+    }
+
+    /**
+     * Calculates change of penalty caused by moving contiguous block of methods by given
+     * number of positions.
+     *
+     * @param methodOrder ordering to change
+     * @param firstMethod first method of block
+     * @param methodsCount number of methods in block
+     * @param indexShift number of positions to move block by
+     * @param screenLinesCount estimated line count that fit on screen at once
+     * @return penalty of changed ordering minus penalty of given ordering
+     * @see MethodOrder#moveMethodsBy(Method, int, int)
+     */
+    public float getMoveDelta(MethodOrder methodOrder, Method firstMethod, int methodsCount,
+                              int indexShift, int screenLinesCount) {
+        final int firstIndex = methodOrder.getMethodIndex(firstMethod);
+        final int newFirstIndex = firstIndex + indexShift;
+        return getDelta(methodOrder,
+            methodOrder.moveMethodsBy(firstMethod, methodsCount, indexShift),
+            Math.min(firstIndex, newFirstIndex),
+            Math.max(firstIndex, newFirstIndex) + methodsCount - 1, screenLinesCount);
+    }
+
+    /**
+     * Calculates change of penalty caused by swapping two methods.
+     * Only methods between swapped ones, their dependencies and groups are evaluated.
+     *
+     * @param methodOrder ordering to change
+     * @param first first method to swap
+     * @param second second method to swap
+     * @param screenLinesCount estimated line count that fit on screen at once
+     * @return penalty of changed ordering minus penalty of given ordering
+     */
+    public float getSwapDelta(MethodOrder methodOrder, Method first, Method second,
+                              int screenLinesCount) {
+        final int firstIndex = methodOrder.getMethodIndex(first);
+        final int secondIndex = methodOrder.getMethodIndex(second);
+        return getDelta(methodOrder, methodOrder.swapMethods(first, second),
+            Math.min(firstIndex, secondIndex), Math.max(firstIndex, secondIndex),
+            screenLinesCount);
+    }
+
+    /**
+     * Calculates the part of penalty which depends on order of methods inside the range of
+     * indices: metrics of these methods, their dependencies and groups. For two orderings
+     * which differ inside the range only, difference of these values equals difference of
+     * their penalties.
+     *
+     * @param methodOrder ordering
+     * @param fromIndex first index of range
+     * @param toIndex last index of range
+     * @param screenLinesCount estimated line count that fit on screen at once
+     * @return penalty of range
+     */
+    public float getRangePenalty(MethodOrder methodOrder, int fromIndex, int toIndex,
+                                 int screenLinesCount) {
+        return getPenaltyBreakdown(methodOrder, screenLinesCount, fromIndex, toIndex)
+            .getPenalty();
+    }
+
+    /**
+     * Calculates lower bound of penalty of all orderings which start with the same methods as
+     * given ordering. With no placed methods the bound holds for every ordering of the class,
+     * with all methods placed it does not exceed penalty of the ordering.
+     *
+     * @param methodOrder ordering which first methods are placed
+     * @param placedCount number of placed methods, positions of the rest are ignored
+     * @param screenLinesCount estimated line count that fit on screen at once
+     * @return lower bound of penalty
+     */
+    public float getPenaltyLowerBound(MethodOrder methodOrder, int placedCount,
+                                      int screenLinesCount) {
+        final PenaltyEvaluator penaltyEvaluator = evaluator.get();
+        penaltyEvaluator.evaluateLowerBound(methodOrder, screenLinesCount, placedCount);
+        return getPenalty(penaltyEvaluator);
+    }
+
+    /**
+     * Compares penalty of ordering with lower bound of penalty of all orderings of the class.
+     *
+     * @param methodOrder ordering
+     * @param screenLinesCount estimated line count that fit on screen at once
+     * @return penalty, lower bound and gap between them
+     */
+    public OptimalityGap getOptimalityGap(MethodOrder methodOrder, int screenLinesCount) {
+        return new OptimalityGap(getPenalty(methodOrder, screenLinesCount),
+            getPenaltyLowerBound(methodOrder, 0, screenLinesCount));
+    }
+
+    /**
+     * Calculates change of penalty between two orderings which differ inside the range of
+     * indices only.
+     *
+     * @param before ordering before change
+     * @param after ordering after change
+     * @param fromIndex first changed index
+     * @param toIndex last changed index
+     * @param screenLinesCount estimated line count that fit on screen at once
+     * @return penalty of changed ordering minus penalty of given ordering
+     * @see #getRangePenalty(MethodOrder, int, int, int)
+     */
+    public float getDelta(MethodOrder before, MethodOrder after, int fromIndex, int toIndex,
+                          int screenLinesCount) {
+        return getRangePenalty(after, fromIndex, toIndex, screenLinesCount)
+            - getRangePenalty(before, fromIndex, toIndex, screenLinesCount);
+    }
+
+    private PenaltyBreakdown getPenaltyBreakdown(MethodOrder dep, int screenLinesCount,
+                                                 int fromIndex, int toIndex) {
+        final PenaltyEvaluator penaltyEvaluator = evaluator.get();
+        penaltyEvaluator.evaluate(dep, screenLinesCount, fromIndex, toIndex);
+        return new PenaltyBreakdown(penaltyEvaluator, getPenalty(penaltyEvaluator));
+    }
+
+    /**
+     * Weighted sum of metrics counted by evaluator.
+     *
+     * @param penaltyEvaluator evaluator
+     * @return penalty
+     */
+    float getPenalty(PenaltyEvaluator penaltyEvaluator) {
+        return penaltyEvaluator.getTotalSumOfMethodDistances()
+            + penaltyEvaluator.getDeclarationBeforeUsageCases()
+                * declarationBeforeFirstUsagePenalty
+            + penaltyEvaluator.getGroupSplitCases(MethodGroups.Kind.CTOR)
+                * ctorGroupDivisionPenalty
+            + penaltyEvaluator.getGroupSplitCases(MethodGroups.Kind.OVERLOAD)
+                * overloadGroupDivisionPenalty
+            + penaltyEvaluator.getGroupSplitCases(MethodGroups.Kind.OVERRIDE)
+                * overrideGroupDivisionPenalty
+            + penaltyEvaluator.getGroupSplitCases(MethodGroups.Kind.ACCESSOR)
+                * accessorsGroupDivisionPenalty
+            + penaltyEvaluator.getRelativeOrderInconsistencyCases()
+                * relativeOrderInconsistencyPenalty
+            + penaltyEvaluator.getDependenciesBetweenDistantMethodsCases()
                 * dependenciesBetweenDistantMethodsPenalty;
     }
 
+    private PenaltyBreakdown getCachedBreakdown(CacheKey key) {
+        final PenaltyBreakdown result = getPenaltyCache().get(key);
+        if (result == null) {
+            penaltyCacheMisses.increment();
+        }
+        else {
+            penaltyCacheHits.increment();
+        }
+        return result;
+    }
+
+    private void cacheBreakdown(CacheKey key, PenaltyBreakdown breakdown) {
+        getPenaltyCache().put(key, breakdown);
+    }
+
+    private PenaltyCache getPenaltyCache() {
+        final PenaltyCache result = penaltyCache.get();
+        final int generation = penaltyCacheGeneration.get();
+        if (result.generation != generation) {
+            result.clear();
+            result.generation = generation;
+        }
+        return result;
+    }
+
     public float getCtorGroupDivisionPenalty() {
         return ctorGroupDivisionPenalty;
     }
 
     public void setCtorGroupDivisionPenalty(float ctorGroupDivisionPenalty) {
         this.ctorGroupDivisionPenalty = ctorGroupDivisionPenalty;
+        clearPenaltyCache();
     }
 
     public float getOverrideGroupDivisionPenalty() {
@@ -76,6 +322,7 @@ public class PenaltyCalculator {
 
     public void setOverrideGroupDivisionPenalty(float overrideGroupDivisionPenalty) {
         this.overrideGroupDivisionPenalty = overrideGroupDivisionPenalty;
+        clearPenaltyCache();
     }
 
     public float getOverloadGroupDivisionPenalty() {
@@ -84,6 +331,7 @@ public class PenaltyCalculator {
 
     public void setOverloadGroupDivisionPenalty(float overloadGroupDivisionPenalty) {
         this.overloadGroupDivisionPenalty = overloadGroupDivisionPenalty;
+        clearPenaltyCache();
     }
 
     public float getDeclarationBeforeFirstUsagePenalty() {
@@ -92,6 +340,7 @@ public class PenaltyCalculator {
 
     public void setDeclarationBeforeFirstUsagePenalty(float declarationBeforeFirstUsagePenalty) {
         this.declarationBeforeFirstUsagePenalty = declarationBeforeFirstUsagePenalty;
+        clearPenaltyCache();
     }
 
     public float getRelativeOrderInconsistencyPenalty() {
@@ -100,6 +349,7 @@ public class PenaltyCalculator {
 
     public void setRelativeOrderInconsistencyPenalty(float relativeOrderInconsistencyPenalty) {
         this.relativeOrderInconsistencyPenalty = relativeOrderInconsistencyPenalty;
+        clearPenaltyCache();
     }
 
     public float getAccessorsGroupDivisionPenalty() {
@@ -108,6 +358,7 @@ public class PenaltyCalculator {
 
     public void setAccessorsGroupDivisionPenalty(float accessorsGroupDivisionPenalty) {
         this.accessorsGroupDivisionPenalty = accessorsGroupDivisionPenalty;
+        clearPenaltyCache();
     }
 
     public float getDependenciesBetweenDistantMethodsPenalty() {
@@ -118,5 +369,85 @@ public class PenaltyCalculator {
             float dependenciesBetweenDistantMethodsPenalty) {
 
         this.dependenciesBetweenDistantMethodsPenalty = dependenciesBetweenDistantMethodsPenalty;
+        clearPenaltyCache();
+    }
+
+    public int getPenaltyCacheCapacity() {
+        return penaltyCacheCapacity;
+    }
+
+    public void setPenaltyCacheCapacity(int penaltyCacheCapacity) {
+        this.penaltyCacheCapacity = penaltyCacheCapacity;
+        clearPenaltyCache();
+    }
+
+    public long getPenaltyCacheHits() {
+        return penaltyCacheHits.sum();
+    }
+
+    public long getPenaltyCacheMisses() {
+        return penaltyCacheMisses.sum();
+    }
+
+    private void clearPenaltyCache() {
+        penaltyCacheGeneration.incrementAndGet();
+    }
+
+    /**
+     * Penalty cache of one thread. It is cleared on first access after the generation of
+     * calculator changes.
+     */
+    private final class PenaltyCache extends LinkedHashMap<CacheKey, PenaltyBreakdown> {
+
+        private static final long serialVersionUID = 1L;
+
+        private int generation = penaltyCacheGeneration.get();
+
+        private PenaltyCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, PenaltyBreakdown> eldest) {
+            return size() > penaltyCacheCapacity;
+        }
+    }
+
+    /**
+     * Key of cached penalty. Orderings of different classes may have equal hashes, so class
+     * graph is compared by identity as well.
+     */
+    private static final class CacheKey {
+
+        private final ClassGraph classGraph;
+
+        private final long orderingHash;
+
+        private final int screenLinesCount;
+
+        private CacheKey(MethodOrder dep, int screenLinesCount) {
+            classGraph = dep.getClassGraph();
+            orderingHash = dep.getOrderingHash();
+            this.screenLinesCount = screenLinesCount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == null || o.getClass() != getClass()) {
+                return false;
+            }
+            else {
+                final CacheKey rhs = (CacheKey) o;
+                return classGraph == rhs.classGraph
+                    && orderingHash == rhs.orderingHash
+                    && screenLinesCount == rhs.screenLinesCount;
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(classGraph), orderingHash,
+                screenLinesCount);
+        }
     }
 }
@@ -0,0 +1,498 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.ordering;
+
+import java.util.Arrays;
+
+/**
+ * Computes all metrics of penalty function in one pass over ordering.
+ * <p>
+ * Metrics are restricted to the part of ordering affected by changes within the window of
+ * indices [fromIndex, toIndex]: dependencies which caller or callee lies in the window,
+ * callers of such dependencies and groups which span intersects the window. When two
+ * orderings differ only inside the window, difference of restricted metrics equals difference
+ * of complete metrics. Whole ordering window gives complete metrics.
+ * </p>
+ * <p>
+ * Scratch buffers are reused between evaluations, so instance must not be shared between
+ * threads.
+ * </p>
+ */
+final class PenaltyEvaluator {
+
+    private boolean[] affectedCallers = new boolean[0];
+
+    private int[] lastCountedCaller = new int[0];
+
+    private int[] lastCountedNeighbour = new int[0];
+
+    private int totalSumOfMethodDistances;
+
+    private int declarationBeforeUsageCases;
+
+    private final int[] groupSplitCases = new int[MethodGroups.Kind.values().length];
+
+    private int relativeOrderInconsistencyCases;
+
+    private int dependenciesBetweenDistantMethodsCases;
+
+    /** Whether all metrics were counted by the last evaluation. */
+    private boolean complete;
+
+    public void evaluate(MethodOrder order, int screenLinesCount, int fromIndex, int toIndex) {
+        final int methodCount = reset(order);
+        complete = true;
+        evaluateDependencies(order, fromIndex, toIndex);
+        evaluateGroups(order, fromIndex, toIndex);
+        final boolean wholeOrdering = fromIndex == 0 && toIndex == methodCount - 1;
+        if (!wholeOrdering) {
+            markAffectedCallers(order, fromIndex, toIndex);
+        }
+        for (int caller = 0; caller < methodCount; ++caller) {
+            if (wholeOrdering || affectedCallers[caller]) {
+                affectedCallers[caller] = false;
+                evaluateRelativeOrder(order, caller);
+                evaluateDistantDependencies(order, caller, screenLinesCount, methodCount);
+            }
+        }
+    }
+
+    /**
+     * Calculates penalty of whole ordering, but stops as soon as it exceeds the upper bound.
+     * Metrics are counted from the cheapest ones, metrics with zero weight are skipped.
+     * Weights are expected to be non-negative, so partial penalty never decreases.
+     *
+     * @param order ordering
+     * @param screenLinesCount estimated line count that fit on screen at once
+     * @param calculator weights of metrics
+     * @param upperBound upper bound of penalty
+     * @return penalty or partial penalty which exceeds the upper bound
+     */
+    public float evaluate(MethodOrder order, int screenLinesCount, PenaltyCalculator calculator,
+                          float upperBound) {
+        final int methodCount = reset(order);
+        final boolean groupsWeighted = calculator.getCtorGroupDivisionPenalty() != 0
+            || calculator.getOverloadGroupDivisionPenalty() != 0
+            || calculator.getOverrideGroupDivisionPenalty() != 0
+            || calculator.getAccessorsGroupDivisionPenalty() != 0;
+        final float relativeOrderWeight = calculator.getRelativeOrderInconsistencyPenalty();
+        final float distantMethodsWeight =
+            calculator.getDependenciesBetweenDistantMethodsPenalty();
+        complete = groupsWeighted && relativeOrderWeight != 0 && distantMethodsWeight != 0;
+        if (groupsWeighted) {
+            evaluateGroups(order, 0, methodCount - 1);
+        }
+        float result = calculator.getPenalty(this);
+        if (result <= upperBound) {
+            evaluateDependencies(order, 0, methodCount - 1);
+            result = calculator.getPenalty(this);
+        }
+        for (int caller = 0; relativeOrderWeight != 0 && result <= upperBound
+            && caller < methodCount; ++caller) {
+            final int counted = relativeOrderInconsistencyCases;
+            evaluateRelativeOrder(order, caller);
+            result += (relativeOrderInconsistencyCases - counted) * relativeOrderWeight;
+        }
+        for (int caller = 0; distantMethodsWeight != 0 && result <= upperBound
+            && caller < methodCount; ++caller) {
+            final int counted = dependenciesBetweenDistantMethodsCases;
+            evaluateDistantDependencies(order, caller, screenLinesCount, methodCount);
+            result += (dependenciesBetweenDistantMethodsCases - counted) * distantMethodsWeight;
+        }
+        if (result <= upperBound) {
+            result = calculator.getPenalty(this);
+        }
+        else {
+            complete = false;
+        }
+        return result;
+    }
+
+    /**
+     * Counts lower bounds of metrics of all orderings which start with the same methods as
+     * given ordering. Only the first methods are placed, positions of the rest are ignored.
+     * <p>
+     * Unplaced methods occupy distinct indices after the placed ones, so each dependency
+     * between placed and unplaced method spans at least to the first free index, and distinct
+     * unplaced neighbours of a method take consecutive indices at best. Dependency of
+     * unplaced caller on placed callee is always declared before usage, so is at least one
+     * dependency of each call cycle among unplaced methods. Group split and
+     * relative order cases among placed methods are known. Line distances are known between
+     * placed methods unless they depend on layout of other methods.
+     * </p>
+     *
+     * @param order ordering which first methods are placed
+     * @param screenLinesCount estimated line count that fit on screen at once
+     * @param placedCount number of placed methods
+     */
+    public void evaluateLowerBound(MethodOrder order, int screenLinesCount, int placedCount) {
+        final int methodCount = reset(order);
+        complete = false;
+        for (int index = 0; index < placedCount; ++index) {
+            addPlacedDependencies(order, index, placedCount);
+        }
+        addUnplacedDependencies(order, placedCount);
+        evaluateGroupsLowerBound(order, placedCount);
+        final CallGraph callGraph = order.getClassGraph().getCallGraph();
+        for (int position = 0; position < callGraph.getLayoutSensitiveCallersCount();
+             ++position) {
+            affectedCallers[callGraph.getLayoutSensitiveCaller(position)] = true;
+        }
+        for (int index = 0; index < methodCount; ++index) {
+            final int caller = order.getMethodAt(index);
+            if (!callGraph.isLayoutDependent(caller)) {
+                evaluateRelativeOrderLowerBound(order, caller, placedCount);
+            }
+            if (index < placedCount && !affectedCallers[caller]) {
+                evaluateDistantDependencies(order, caller, screenLinesCount, placedCount);
+            }
+        }
+        Arrays.fill(affectedCallers, false);
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public int getTotalSumOfMethodDistances() {
+        return totalSumOfMethodDistances;
+    }
+
+    public int getDeclarationBeforeUsageCases() {
+        return declarationBeforeUsageCases;
+    }
+
+    public int getGroupSplitCases(MethodGroups.Kind kind) {
+        return groupSplitCases[kind.ordinal()];
+    }
+
+    public int getRelativeOrderInconsistencyCases() {
+        return relativeOrderInconsistencyCases;
+    }
+
+    public int getDependenciesBetweenDistantMethodsCases() {
+        return dependenciesBetweenDistantMethodsCases;
+    }
+
+    private int reset(MethodOrder order) {
+        final int methodCount = order.getClassGraph().getMethodCount();
+        if (affectedCallers.length < methodCount) {
+            affectedCallers = new boolean[methodCount];
+            lastCountedCaller = new int[methodCount];
+            lastCountedNeighbour = new int[methodCount];
+        }
+        Arrays.fill(lastCountedCaller, -1);
+        Arrays.fill(lastCountedNeighbour, -1);
+        totalSumOfMethodDistances = 0;
+        declarationBeforeUsageCases = 0;
+        Arrays.fill(groupSplitCases, 0);
+        relativeOrderInconsistencyCases = 0;
+        dependenciesBetweenDistantMethodsCases = 0;
+        return methodCount;
+    }
+
+    /**
+     * Evaluates dependencies which caller or callee lies in the window.
+     *
+     * @param order ordering
+     * @param fromIndex first index of window
+     * @param toIndex last index of window
+     */
+    private void evaluateDependencies(MethodOrder order, int fromIndex, int toIndex) {
+        final CallGraph callGraph = order.getClassGraph().getCallGraph();
+        for (int index = fromIndex; index <= toIndex; ++index) {
+            final int method = order.getMethodAt(index);
+            for (int position = 0; position < callGraph.getDependenciesCount(method);
+                 ++position) {
+                addDependency(index, order.getIndexOf(callGraph.getDependency(method, position)));
+            }
+            for (int position = 0; position < callGraph.getDependantsCount(method);
+                 ++position) {
+                final int callerIndex = order.getIndexOf(callGraph.getDependant(method, position));
+                if (callerIndex < fromIndex || callerIndex > toIndex) {
+                    addDependency(callerIndex, index);
+                }
+            }
+        }
+    }
+
+    private void addDependency(int callerIndex, int calleeIndex) {
+        totalSumOfMethodDistances += Math.abs(calleeIndex - callerIndex);
+        if (calleeIndex < callerIndex) {
+            ++declarationBeforeUsageCases;
+        }
+    }
+
+    /**
+     * Counts dependencies of placed method. Dependencies with unplaced methods contribute the
+     * least distance possible: {@code e} such dependencies with {@code d} distinct unplaced
+     * methods span at least {@code e * (placedCount - index) + d * (d - 1) / 2}.
+     *
+     * @param order ordering
+     * @param index index of placed method
+     * @param placedCount number of placed methods
+     */
+    private void addPlacedDependencies(MethodOrder order, int index, int placedCount) {
+        final CallGraph callGraph = order.getClassGraph().getCallGraph();
+        final int method = order.getMethodAt(index);
+        int unplacedDependencies = 0;
+        int unplacedNeighbours = 0;
+        for (int position = 0; position < callGraph.getDependenciesCount(method); ++position) {
+            final int callee = callGraph.getDependency(method, position);
+            final int calleeIndex = order.getIndexOf(callee);
+            if (calleeIndex < placedCount) {
+                addDependency(index, calleeIndex);
+            }
+            else {
+                ++unplacedDependencies;
+                lastCountedNeighbour[callee] = method;
+                ++unplacedNeighbours;
+            }
+        }
+        for (int position = 0; position < callGraph.getDependantsCount(method); ++position) {
+            final int caller = callGraph.getDependant(method, position);
+            if (order.getIndexOf(caller) >= placedCount) {
+                ++unplacedDependencies;
+                ++declarationBeforeUsageCases;
+                if (lastCountedNeighbour[caller] != method) {
+                    ++unplacedNeighbours;
+                }
+            }
+        }
+        totalSumOfMethodDistances += unplacedDependencies * (placedCount - index)
+            + unplacedNeighbours * (unplacedNeighbours - 1) / 2;
+    }
+
+    /**
+     * Counts dependencies between unplaced methods. Distinct unplaced neighbours of a method
+     * take distinct indices on both sides of it, so {@code d} of them span at least
+     * {@code 1 + 1 + 2 + 2 + ...} up to {@code d} terms. Each pair of neighbours is counted
+     * from both sides, and dependencies of mutually dependent methods span the same distance
+     * twice. Call cycles force declaration before usage cases.
+     *
+     * @param order ordering
+     * @param placedCount number of placed methods
+     */
+    private void addUnplacedDependencies(MethodOrder order, int placedCount) {
+        final CallGraph callGraph = order.getClassGraph().getCallGraph();
+        int neighbourDistances = 0;
+        int mutualPairs = 0;
+        for (int index = placedCount; index < order.getMethods().size(); ++index) {
+            final int method = order.getMethodAt(index);
+            int neighbours = 0;
+            for (int position = 0; position < callGraph.getDependenciesCount(method);
+                 ++position) {
+                final int callee = callGraph.getDependency(method, position);
+                if (callee != method && order.getIndexOf(callee) >= placedCount) {
+                    lastCountedNeighbour[callee] = method;
+                    ++neighbours;
+                    if (callee < method && callGraph.isMethodDependsOn(callee, method)) {
+                        ++mutualPairs;
+                    }
+                }
+            }
+            neighbours += countUnplacedDependants(order, method, placedCount);
+            final int half = neighbours / 2;
+            neighbourDistances += half * (half + 1) + neighbours % 2 * (half + 1);
+        }
+        totalSumOfMethodDistances += (neighbourDistances + 1) / 2 + mutualPairs;
+        declarationBeforeUsageCases +=
+            CallCycles.getForcedDeclarationBeforeUsageCases(order, placedCount);
+    }
+
+    /**
+     * Counts unplaced dependants of method which are not its dependencies.
+     *
+     * @param order ordering
+     * @param method unplaced method which dependencies are marked as counted neighbours
+     * @param placedCount number of placed methods
+     * @return number of dependants
+     */
+    private int countUnplacedDependants(MethodOrder order, int method, int placedCount) {
+        final CallGraph callGraph = order.getClassGraph().getCallGraph();
+        int result = 0;
+        for (int position = 0; position < callGraph.getDependantsCount(method); ++position) {
+            final int caller = callGraph.getDependant(method, position);
+            if (caller != method && order.getIndexOf(caller) >= placedCount
+                && lastCountedNeighbour[caller] != method) {
+                ++result;
+            }
+        }
+        return result;
+    }
+
+    private void evaluateGroups(MethodOrder order, int fromIndex, int toIndex) {
+        final MethodGroups methodGroups = order.getClassGraph().getMethodGroups();
+        for (int group = 0; group < methodGroups.getGroupCount(); ++group) {
+            int minIndex = Integer.MAX_VALUE;
+            int maxIndex = Integer.MIN_VALUE;
+            final int membersCount = methodGroups.getMembersCount(group);
+            for (int position = 0; position < membersCount; ++position) {
+                final int index = order.getIndexOf(methodGroups.getMember(group, position));
+                minIndex = Math.min(minIndex, index);
+                maxIndex = Math.max(maxIndex, index);
+            }
+            if (minIndex <= toIndex && fromIndex <= maxIndex) {
+                groupSplitCases[methodGroups.getKind(group).ordinal()] +=
+                    maxIndex - minIndex - membersCount + 1;
+            }
+        }
+    }
+
+    /**
+     * Counts group split cases among placed methods. Group which members are placed only in
+     * part is split at least by all methods placed after its first member.
+     *
+     * @param order ordering
+     * @param placedCount number of placed methods
+     */
+    private void evaluateGroupsLowerBound(MethodOrder order, int placedCount) {
+        final MethodGroups methodGroups = order.getClassGraph().getMethodGroups();
+        for (int group = 0; group < methodGroups.getGroupCount(); ++group) {
+            int minIndex = Integer.MAX_VALUE;
+            int maxIndex = Integer.MIN_VALUE;
+            int placedMembersCount = 0;
+            final int membersCount = methodGroups.getMembersCount(group);
+            for (int position = 0; position < membersCount; ++position) {
+                final int index = order.getIndexOf(methodGroups.getMember(group, position));
+                if (index < placedCount) {
+                    minIndex = Math.min(minIndex, index);
+                    maxIndex = Math.max(maxIndex, index);
+                    ++placedMembersCount;
+                }
+            }
+            if (placedMembersCount > 0) {
+                if (placedMembersCount < membersCount) {
+                    maxIndex = placedCount + membersCount - placedMembersCount - 1;
+                }
+                groupSplitCases[methodGroups.getKind(group).ordinal()] +=
+                    maxIndex - minIndex - membersCount + 1;
+            }
+        }
+    }
+
+    /**
+     * Marks methods in the window, their dependants and callers which line distances may
+     * change when methods in the window are moved.
+     *
+     * @param order ordering
+     * @param fromIndex first index of window
+     * @param toIndex last index of window
+     */
+    private void markAffectedCallers(MethodOrder order, int fromIndex, int toIndex) {
+        final CallGraph callGraph = order.getClassGraph().getCallGraph();
+        for (int index = fromIndex; index <= toIndex; ++index) {
+            final int method = order.getMethodAt(index);
+            affectedCallers[method] = true;
+            for (int position = 0; position < callGraph.getDependantsCount(method);
+                 ++position) {
+                affectedCallers[callGraph.getDependant(method, position)] = true;
+            }
+        }
+        for (int position = 0; position < callGraph.getLayoutSensitiveCallersCount();
+             ++position) {
+            affectedCallers[callGraph.getLayoutSensitiveCaller(position)] = true;
+        }
+    }
+
+    private void evaluateRelativeOrder(MethodOrder order, int caller) {
+        final ClassGraph classGraph = order.getClassGraph();
+        final CallGraph callGraph = classGraph.getCallGraph();
+        int maxCalleeIndex = 0;
+        if (callGraph.isLayoutDependent(caller)) {
+            for (final Method callee : order.getMethodDependenciesInAppearanceOrder(
+                classGraph.getMethod(caller))) {
+                final int calleeIndex = order.getMethodIndex(callee);
+                if (calleeIndex < maxCalleeIndex) {
+                    ++relativeOrderInconsistencyCases;
+                }
+                else {
+                    maxCalleeIndex = calleeIndex;
+                }
+            }
+        }
+        else {
+            for (int position = 0; position < callGraph.getDependenciesCount(caller);
+                 ++position) {
+                final int calleeIndex = order.getIndexOf(callGraph.getDependency(caller,
+                    position));
+                if (calleeIndex < maxCalleeIndex) {
+                    ++relativeOrderInconsistencyCases;
+                }
+                else {
+                    maxCalleeIndex = calleeIndex;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts relative order inconsistency cases of placed dependencies of caller which is not
+     * layout dependent. Placed dependency is inconsistent if any preceding dependency is
+     * unplaced, as unplaced methods follow all placed ones.
+     *
+     * @param order ordering
+     * @param caller caller
+     * @param placedCount number of placed methods
+     */
+    private void evaluateRelativeOrderLowerBound(MethodOrder order, int caller,
+                                                 int placedCount) {
+        final CallGraph callGraph = order.getClassGraph().getCallGraph();
+        int maxCalleeIndex = 0;
+        for (int position = 0; position < callGraph.getDependenciesCount(caller); ++position) {
+            final int calleeIndex = order.getIndexOf(callGraph.getDependency(caller, position));
+            if (calleeIndex < placedCount && calleeIndex < maxCalleeIndex) {
+                ++relativeOrderInconsistencyCases;
+            }
+            else {
+                maxCalleeIndex = Math.max(maxCalleeIndex, calleeIndex);
+            }
+        }
+    }
+
+    /**
+     * Counts dependencies of caller on callees located in the first methods which are
+     * farther than screen from the invocation.
+     *
+     * @param order ordering
+     * @param caller caller
+     * @param screenLinesCount estimated line count that fit on screen at once
+     * @param calleesCount number of first methods to consider as callees
+     */
+    private void evaluateDistantDependencies(MethodOrder order, int caller,
+                                             int screenLinesCount, int calleesCount) {
+        final ClassGraph classGraph = order.getClassGraph();
+        final CallTable callTable = classGraph.getCallTable();
+        for (int call = callTable.getCallsStart(caller); call < callTable.getCallsEnd(caller);
+             ++call) {
+            final int callee = callTable.getCallee(call);
+            if (lastCountedCaller[callee] != caller && order.getIndexOf(callee) < calleesCount) {
+                final int invocationLineNo = order.translateInitialLineNo(
+                    callTable.getLineNo(call));
+                final int calleeLineNo = order.translateInitialLineNo(
+                    classGraph.getMethod(callee).getInitialLineNo());
+                if (Math.abs(calleeLineNo - invocationLineNo) > screenLinesCount) {
+                    lastCountedCaller[callee] = caller;
+                    ++dependenciesBetweenDistantMethodsCases;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.ordering;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of directed graph found by iterative Tarjan's algorithm.
+ * Vertices are numbered from zero, components are numbered in order of completion, which is
+ * reverse topological order of condensation. Only vertices reachable from visited roots are
+ * assigned to components.
+ */
+public final class StronglyConnectedComponents {
+
+    /** Successors of each vertex in order of traversal. */
+    private final int[][] successors;
+
+    /** Discovery time of each vertex, zero for vertices not visited yet. */
+    private final int[] discovery;
+
+    private final int[] lowLinks;
+
+    private final int[] components;
+
+    private final boolean[] onStack;
+
+    private final int[] stack;
+
+    private final int[] frames;
+
+    private final int[] framePositions;
+
+    private int stackSize;
+
+    private int time;
+
+    private int componentsCount;
+
+    /**
+     * Creates search over graph given by successors of its vertices.
+     *
+     * @param successors successors of each vertex in order they should be traversed
+     */
+    public StronglyConnectedComponents(int[]... successors) {
+        this.successors = successors;
+        final int verticesCount = successors.length;
+        discovery = new int[verticesCount];
+        lowLinks = new int[verticesCount];
+        components = new int[verticesCount];
+        Arrays.fill(components, -1);
+        onStack = new boolean[verticesCount];
+        stack = new int[verticesCount];
+        frames = new int[verticesCount];
+        framePositions = new int[verticesCount];
+    }
+
+    /**
+     * Finds components of all vertices reachable from root, unless root is already visited.
+     *
+     * @param root vertex to start depth-first search from
+     */
+    public void visit(int root) {
+        if (discovery[root] == 0) {
+            int depth = open(root, 0);
+            while (depth > 0) {
+                final int vertex = frames[depth - 1];
+                if (framePositions[depth - 1] < successors[vertex].length) {
+                    final int successor = successors[vertex][framePositions[depth - 1]];
+                    ++framePositions[depth - 1];
+                    if (discovery[successor] == 0) {
+                        depth = open(successor, depth);
+                    }
+                    else if (onStack[successor]) {
+                        lowLinks[vertex] = Math.min(lowLinks[vertex], discovery[successor]);
+                    }
+                }
+                else {
+                    --depth;
+                    close(vertex);
+                    if (depth > 0) {
+                        final int parent = frames[depth - 1];
+                        lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[vertex]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of component of vertex.
+     *
+     * @param vertex vertex
+     * @return number of component, or -1 if vertex is not visited
+     */
+    public int getComponent(int vertex) {
+        return components[vertex];
+    }
+
+    public int getComponentsCount() {
+        return componentsCount;
+    }
+
+    private int open(int vertex, int depth) {
+        ++time;
+        discovery[vertex] = time;
+        lowLinks[vertex] = time;
+        stack[stackSize] = vertex;
+        ++stackSize;
+        onStack[vertex] = true;
+        frames[depth] = vertex;
+        framePositions[depth] = 0;
+        return depth + 1;
+    }
+
+    private void close(int vertex) {
+        if (lowLinks[vertex] == discovery[vertex]) {
+            int member;
+            do {
+                --stackSize;
+                member = stack[stackSize];
+                onStack[member] = false;
+                components[member] = componentsCount;
+            } while (member != vertex);
+            ++componentsCount;
+        }
+    }
+}
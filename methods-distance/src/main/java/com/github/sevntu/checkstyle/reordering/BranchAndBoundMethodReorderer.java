@@ -0,0 +1,268 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.github.sevntu.checkstyle.ordering.Method;
+import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
+
+/**
+ * Finds ordering with minimal penalty by branch and bound.
+ * <p>
+ * Ordering is built prefix by prefix, prefixes which penalty lower bound is not less than
+ * penalty of the best ordering known are pruned. Penalty bound shared through the budget
+ * prunes prefixes as well, then result is proven optimal only if it reaches the bound. Search starts with result of
+ * {@link TopologicalMethodReorderer} as the best ordering. Methods which can be swapped in
+ * any ordering without changing its penalty are placed in their initial relative order only.
+ * </p>
+ * <p>
+ * Search is exponential, so it is attempted for classes of at most
+ * {@link #getMaxMethodsCount()} methods. If class is larger, result of
+ * {@link TopologicalMethodReorderer} is returned. If search hits the node or time limit, the
+ * best ordering found so far is returned, which is never worse than the topological one. Whether the last result is
+ * proven optimal is available from {@link #isLastResultOptimal()}, so instance should not be
+ * shared between threads.
+ * </p>
+ */
+public class BranchAndBoundMethodReorderer implements MethodReorderer {
+
+    public static final int DEFAULT_MAX_METHODS_COUNT = 15;
+
+    public static final long DEFAULT_MAX_NODES = 1000000;
+
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 1000;
+
+    private static final int DEFAULT_SCREEN_LINES_COUNT = 50;
+
+    private final int screenLinesCount = DEFAULT_SCREEN_LINES_COUNT;
+
+    private final PenaltyCalculator calculator = new PenaltyCalculator();
+
+    private final MethodReorderer fallbackReorderer = new TopologicalMethodReorderer();
+
+    private int maxMethodsCount = DEFAULT_MAX_METHODS_COUNT;
+
+    private long maxNodes = DEFAULT_MAX_NODES;
+
+    private long timeLimitMillis = DEFAULT_TIME_LIMIT_MILLIS;
+
+    private boolean lastResultOptimal;
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder) {
+        return reorder(initialMethodOrder, ReorderingBudget.unlimited());
+    }
+
+    /**
+     * Searches for optimal ordering until budget is exhausted, then returns the best ordering
+     * found so far.
+     *
+     * @param initialMethodOrder ordering to improve
+     * @param budget time limit, cancellation token and progress listener
+     * @return optimal ordering or the best one found
+     */
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder, ReorderingBudget budget) {
+        final ReorderingBudget searchBudget = budget.restrict(timeLimitMillis);
+        final MethodOrder topologicalOrder =
+            fallbackReorderer.reorder(initialMethodOrder, searchBudget);
+        final MethodOrder result;
+        if (topologicalOrder.getMethods().size() > maxMethodsCount) {
+            lastResultOptimal = false;
+            result = topologicalOrder;
+        }
+        else {
+            final Search search = new Search(topologicalOrder, searchBudget);
+            search.extend(topologicalOrder, 0);
+            lastResultOptimal = !search.aborted
+                && search.bestPenalty <= searchBudget.getPenaltyBound();
+            result = search.best;
+        }
+        return result;
+    }
+
+    /**
+     * Finds for each method the previous method it is interchangeable with. Methods are
+     * interchangeable when they have no dependencies and dependants, the same length, do not
+     * share lines with neighbours and belong to the same groups.
+     *
+     * @param order ordering
+     * @return initial index of previous interchangeable method or -1 by initial index of method
+     */
+    private static int[] getInterchangeablePredecessors(MethodOrder order) {
+        final List<Method> initialOrdering = order.getMethods().stream()
+            .sorted(Comparator.comparingInt(Method::getInitialIndex))
+            .collect(Collectors.toList());
+        final Map<String, Long> namesCount = initialOrdering.stream()
+            .filter(method -> !method.isCtor())
+            .collect(Collectors.groupingBy(Method::getName, Collectors.counting()));
+        final Map<String, Long> propertiesCount = initialOrdering.stream()
+            .filter(method -> method.isGetter() || method.isSetter())
+            .collect(Collectors.groupingBy(Method::getAccessiblePropertyName,
+                Collectors.counting()));
+        final Map<List<Object>, Integer> lastOfKind = new HashMap<>();
+        final int[] result = new int[initialOrdering.size()];
+        Arrays.fill(result, -1);
+        for (final Method method : initialOrdering) {
+            if (!order.hasMethodDependencies(method) && !order.hasMethodDependants(method)
+                && !isSharingLines(initialOrdering, method)) {
+                final boolean overloaded = !method.isCtor()
+                    && namesCount.get(method.getName()) > 1;
+                final boolean accessor = (method.isGetter() || method.isSetter())
+                    && propertiesCount.get(method.getAccessiblePropertyName()) > 1;
+                final List<Object> kind = Arrays.asList(method.getLength(), method.isCtor(),
+                    method.isOverride(), overloaded ? method.getName() : "",
+                    accessor ? method.getAccessiblePropertyName() : "");
+                final Integer previous = lastOfKind.put(kind, method.getInitialIndex());
+                if (previous != null) {
+                    result[method.getInitialIndex()] = previous;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean isSharingLines(List<Method> initialOrdering, Method method) {
+        final int index = method.getInitialIndex();
+        final boolean sharedWithPrevious = index > 0
+            && getEndLineNo(initialOrdering.get(index - 1)) >= method.getInitialLineNo();
+        final boolean sharedWithNext = index + 1 < initialOrdering.size()
+            && initialOrdering.get(index + 1).getInitialLineNo() <= getEndLineNo(method);
+        return sharedWithPrevious || sharedWithNext;
+    }
+
+    private static int getEndLineNo(Method method) {
+        return method.getInitialLineNo() + method.getLength();
+    }
+
+    public boolean isLastResultOptimal() {
+        return lastResultOptimal;
+    }
+
+    public int getMaxMethodsCount() {
+        return maxMethodsCount;
+    }
+
+    public void setMaxMethodsCount(int maxMethodsCount) {
+        this.maxMethodsCount = maxMethodsCount;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public void setMaxNodes(long maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public void setTimeLimitMillis(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * State of depth-first search over prefixes. Methods after the prefix keep relative order
+     * of the best ordering known at start, so its completions are tried first.
+     */
+    private final class Search {
+
+        private final int[] interchangeablePredecessors;
+
+        private final boolean[] placed;
+
+        private final ReorderingBudget budget;
+
+        private MethodOrder best;
+
+        private float bestPenalty;
+
+        private long nodes;
+
+        private boolean aborted;
+
+        private Search(MethodOrder startingOrder, ReorderingBudget budget) {
+            interchangeablePredecessors = getInterchangeablePredecessors(startingOrder);
+            placed = new boolean[interchangeablePredecessors.length];
+            this.budget = budget;
+            best = startingOrder;
+            bestPenalty = calculator.getPenalty(startingOrder, screenLinesCount);
+            budget.offerPenalty(bestPenalty);
+        }
+
+        /**
+         * Tries each unplaced method at the first free index of ordering.
+         *
+         * @param order ordering which first methods are placed
+         * @param placedCount number of placed methods
+         */
+        public void extend(MethodOrder order, int placedCount) {
+            final List<Method> methods = order.getMethods();
+            if (placedCount == methods.size()) {
+                final float bound = getBound();
+                final float penalty = calculator.getPenalty(order, screenLinesCount, bound);
+                if (penalty < bound) {
+                    best = order;
+                    bestPenalty = penalty;
+                    budget.reportProgress(bestPenalty, nodes);
+                    budget.offerPenalty(bestPenalty);
+                }
+            }
+            for (int index = placedCount; !aborted && index < methods.size(); ++index) {
+                final Method method = methods.get(index);
+                if (isPlaceable(method)) {
+                    ++nodes;
+                    aborted = nodes > maxNodes || budget.isExhausted();
+                    final MethodOrder extended = order.moveMethodBy(method, placedCount - index);
+                    if (!aborted && calculator.getPenaltyLowerBound(extended, placedCount + 1,
+                        screenLinesCount) < getBound()) {
+                        placed[method.getInitialIndex()] = true;
+                        extend(extended, placedCount + 1);
+                        placed[method.getInitialIndex()] = false;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns penalty which ordering should get below to be of use: penalty of the best
+         * ordering found by this search or by searches sharing the budget.
+         *
+         * @return penalty bound
+         */
+        private float getBound() {
+            return Math.min(bestPenalty, budget.getPenaltyBound());
+        }
+
+        private boolean isPlaceable(Method method) {
+            final int predecessor = interchangeablePredecessors[method.getInitialIndex()];
+            return predecessor == -1 || placed[predecessor];
+        }
+    }
+}
@@ -0,0 +1,50 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Requests reordering to stop and return the best ordering found so far. Token may be linked
+ * to a parent token, then it is cancelled together with the parent. Tokens are thread-safe.
+ */
+public final class CancellationToken {
+
+    private final Optional<CancellationToken> parent;
+
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    public CancellationToken() {
+        parent = Optional.empty();
+    }
+
+    public CancellationToken(CancellationToken parent) {
+        this.parent = Optional.of(parent);
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get() || parent.map(CancellationToken::isCancelled).orElse(false);
+    }
+}
@@ -0,0 +1,263 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.github.sevntu.checkstyle.ordering.Method;
+import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
+
+/**
+ * Splits class into weakly connected components of call graph and reorders each component
+ * independently by another reorderer.
+ * <p>
+ * Methods of different components never call each other, so placing each component as a
+ * contiguous block makes distances and relative order of its dependencies independent of other
+ * blocks. Each component is reordered in parallel as a class of its own methods, so the
+ * reorderer searches a product of small permutations instead of one permutation of the whole
+ * class. Then blocks are placed next to blocks containing methods of the same constructor,
+ * override, overload or accessor group when that decreases penalty. Result is never worse than
+ * the initial ordering. Class of a single component is passed to the reorderer as is.
+ * </p>
+ */
+public class DecompositionMethodReorderer implements MethodReorderer {
+
+    private static final int DEFAULT_SCREEN_LINES_COUNT = 50;
+
+    private final int screenLinesCount = DEFAULT_SCREEN_LINES_COUNT;
+
+    private final PenaltyCalculator calculator = new PenaltyCalculator();
+
+    private final MethodReorderer componentReorderer;
+
+    public DecompositionMethodReorderer() {
+        this(new TopologicalMethodReorderer());
+    }
+
+    public DecompositionMethodReorderer(MethodReorderer componentReorderer) {
+        this.componentReorderer = componentReorderer;
+    }
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder) {
+        return reorder(initialMethodOrder, ReorderingBudget.unlimited());
+    }
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder, ReorderingBudget budget) {
+        final List<List<Method>> components = getComponents(initialMethodOrder);
+        final MethodOrder result;
+        if (components.size() > 1) {
+            final List<List<Method>> reordered = components.parallelStream()
+                .map(component -> reorderComponent(initialMethodOrder, component, budget))
+                .collect(Collectors.toList());
+            final MethodOrder placed = placeComponents(
+                initialMethodOrder.reorder(concat(reordered)), reordered,
+                getGroups(initialMethodOrder), budget);
+            final float initialPenalty =
+                calculator.getPenalty(initialMethodOrder, screenLinesCount);
+            if (calculator.getPenalty(placed, screenLinesCount, initialPenalty)
+                <= initialPenalty) {
+                result = placed;
+            }
+            else {
+                result = initialMethodOrder;
+            }
+        }
+        else {
+            result = componentReorderer.reorder(initialMethodOrder, budget);
+        }
+        return result;
+    }
+
+    /**
+     * Reorders methods of component as a class of its own.
+     *
+     * @param order ordering of class
+     * @param component methods of component
+     * @param budget time limit and cancellation token
+     * @return methods of component in new order
+     */
+    private List<Method> reorderComponent(MethodOrder order, List<Method> component,
+                                          ReorderingBudget budget) {
+        final List<Method> result;
+        if (component.size() > 1 && !budget.isExhausted()) {
+            final Map<Method, Method> methods = component.stream()
+                .collect(Collectors.toMap(Function.identity(), Function.identity()));
+            result = componentReorderer.reorder(order.restrict(component), budget)
+                .getMethods().stream()
+                .map(methods::get)
+                .collect(Collectors.toList());
+        }
+        else {
+            result = component;
+        }
+        return result;
+    }
+
+    /**
+     * Splits methods into weakly connected components of call graph.
+     *
+     * @param order ordering
+     * @return components in order of their first methods, methods of each component keep
+     *     their relative order
+     */
+    private static List<List<Method>> getComponents(MethodOrder order) {
+        final List<Method> methods = order.getMethods();
+        final int[] parents = IntStream.range(0, methods.size()).toArray();
+        for (final Method caller : methods) {
+            for (final Method callee : order.getMethodDependenciesInAppearanceOrder(caller)) {
+                parents[findRoot(parents, caller.getInitialIndex())] =
+                    findRoot(parents, callee.getInitialIndex());
+            }
+        }
+        final Map<Integer, List<Method>> components = new LinkedHashMap<>();
+        for (final Method method : methods) {
+            components.computeIfAbsent(findRoot(parents, method.getInitialIndex()),
+                root -> new ArrayList<>()).add(method);
+        }
+        return new ArrayList<>(components.values());
+    }
+
+    private static int findRoot(int[] parents, int method) {
+        int result = method;
+        while (parents[result] != result) {
+            parents[result] = parents[parents[result]];
+            result = parents[result];
+        }
+        return result;
+    }
+
+    private static Map<String, List<Method>> getGroups(MethodOrder order) {
+        final Map<String, List<Method>> result = new HashMap<>();
+        for (final Method method : order.getMethods()) {
+            for (final String key : getGroupKeys(method)) {
+                result.computeIfAbsent(key, group -> new ArrayList<>()).add(method);
+            }
+        }
+        return result;
+    }
+
+    private static List<String> getGroupKeys(Method method) {
+        final List<String> result = new ArrayList<>();
+        if (method.isCtor()) {
+            result.add("ctor");
+        }
+        else {
+            result.add("overload " + method.getName());
+        }
+        if (method.isOverride()) {
+            result.add("override");
+        }
+        if (method.isGetter() || method.isSetter()) {
+            result.add("accessor " + method.getAccessiblePropertyName());
+        }
+        return result;
+    }
+
+    /**
+     * Moves each block just before or after a block which contains method of the same group
+     * when that decreases penalty. Blocks stay contiguous.
+     *
+     * @param order ordering of contiguous blocks
+     * @param blocks blocks in order of ordering
+     * @param groups methods by group keys
+     * @param budget time limit and cancellation token
+     * @return ordering of placed blocks
+     */
+    private MethodOrder placeComponents(MethodOrder order, List<List<Method>> blocks,
+                                        Map<String, List<Method>> groups,
+                                        ReorderingBudget budget) {
+        final Map<Method, List<Method>> blockOfMethod = new HashMap<>();
+        blocks.forEach(block -> block.forEach(method -> blockOfMethod.put(method, block)));
+        MethodOrder result = order;
+        for (int block = 0; block < blocks.size() && !budget.isExhausted(); ++block) {
+            final List<Method> moved = blocks.get(block);
+            final Set<List<Method>> targets = moved.stream()
+                .flatMap(method -> getGroupKeys(method).stream())
+                .map(groups::get)
+                .flatMap(Collection::stream)
+                .map(blockOfMethod::get)
+                .filter(target -> target != moved)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+            result = moveBlockToBestTarget(result, moved, targets);
+        }
+        return result;
+    }
+
+    private MethodOrder moveBlockToBestTarget(MethodOrder order, List<Method> block,
+                                              Set<List<Method>> targets) {
+        final int firstIndex = order.getMethodIndex(block.get(0));
+        int bestShift = 0;
+        float bestDelta = 0;
+        for (final List<Method> target : targets) {
+            final int targetIndex = order.getMethodIndex(target.get(0));
+            int newFirstIndex = targetIndex;
+            if (targetIndex > firstIndex) {
+                newFirstIndex -= block.size();
+            }
+            for (final int shift : new int[] {newFirstIndex - firstIndex,
+                newFirstIndex + target.size() - firstIndex, }) {
+                final float delta = getBlockMoveDelta(order, block, shift);
+                if (delta < bestDelta) {
+                    bestDelta = delta;
+                    bestShift = shift;
+                }
+            }
+        }
+        final MethodOrder result;
+        if (bestShift == 0) {
+            result = order;
+        }
+        else {
+            result = order.moveMethodsBy(block.get(0), block.size(), bestShift);
+        }
+        return result;
+    }
+
+    private float getBlockMoveDelta(MethodOrder order, List<Method> block, int shift) {
+        final float result;
+        if (shift == 0) {
+            result = 0;
+        }
+        else {
+            result = calculator.getMoveDelta(order, block.get(0), block.size(), shift,
+                screenLinesCount);
+        }
+        return result;
+    }
+
+    private static List<Method> concat(List<List<Method>> blocks) {
+        return blocks.stream()
+            .flatMap(Collection::stream)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,244 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.sevntu.checkstyle.ordering.Method;
+import com.github.sevntu.checkstyle.ordering.MethodOrder;
+
+/**
+ * Places helper methods right after methods dominating them in call graph.
+ * <p>
+ * Dominator tree is built for call graph extended by virtual root which calls constructors
+ * and non-private methods, as well as methods not reachable from them. Immediate dominators
+ * are found by iterative algorithm of Cooper, Harvey and Kennedy over reverse postorder,
+ * which converges in a couple of passes on call graphs. Methods are laid out in preorder of
+ * dominator tree: entry points and methods not dominated by other methods keep appearance
+ * order, every dominated method follows its immediate dominator. Methods dominated by the
+ * same method are ordered by appearance of their calls in it, then by appearance order.
+ * </p>
+ * <p>
+ * Reordering takes about linear time of call graph size, thus budget is not checked and
+ * the default {@link MethodReorderer#reorder(MethodOrder, ReorderingBudget)} is used.
+ * </p>
+ */
+public class DominatorMethodReorderer implements MethodReorderer {
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder) {
+        final DominatorTree tree = new DominatorTree(initialMethodOrder);
+        final List<Method> methods = initialMethodOrder.getMethods();
+        final List<Method> result = new ArrayList<>(methods.size());
+        final List<Integer> stack = new ArrayList<>();
+        final List<Integer> roots = tree.getChildren(methods.size());
+        for (int root = roots.size() - 1; root >= 0; --root) {
+            stack.add(roots.get(root));
+        }
+        while (!stack.isEmpty()) {
+            final int method = stack.remove(stack.size() - 1);
+            result.add(methods.get(method));
+            final List<Integer> children = tree.getChildren(method);
+            for (int child = children.size() - 1; child >= 0; --child) {
+                stack.add(children.get(child));
+            }
+        }
+        return initialMethodOrder.reorder(result);
+    }
+
+    /**
+     * Dominator tree over method positions in appearance order, virtual root has position
+     * equal to methods count.
+     */
+    private static final class DominatorTree {
+
+        private final int root;
+
+        private final int[][] successors;
+
+        private final int[][] predecessors;
+
+        private final boolean[] rootSuccessors;
+
+        private final boolean[] discovered;
+
+        private final int[] frames;
+
+        private final int[] framePositions;
+
+        private final int[] postorder;
+
+        private final int[] postorderNumbers;
+
+        private final int[] immediateDominators;
+
+        private final List<List<Integer>> children;
+
+        private int postorderCount;
+
+        private DominatorTree(MethodOrder order) {
+            final List<Method> methods = order.getMethods();
+            root = methods.size();
+            successors = new int[root][];
+            predecessors = new int[root][];
+            for (int method = 0; method < root; ++method) {
+                final Method caller = methods.get(method);
+                successors[method] = order.getMethodDependenciesInAppearanceOrder(caller)
+                    .stream().mapToInt(order::getMethodIndex).toArray();
+                predecessors[method] = order.getMethodDependants(caller)
+                    .stream().mapToInt(order::getMethodIndex).toArray();
+            }
+            rootSuccessors = new boolean[root];
+            discovered = new boolean[root];
+            frames = new int[root];
+            framePositions = new int[root];
+            postorder = new int[root];
+            postorderNumbers = new int[root + 1];
+            postorderNumbers[root] = root;
+            for (int method = 0; method < root; ++method) {
+                if (isEntryPoint(methods.get(method))) {
+                    rootSuccessors[method] = true;
+                    if (!discovered[method]) {
+                        visit(method);
+                    }
+                }
+            }
+            for (int method = 0; method < root; ++method) {
+                if (!discovered[method]) {
+                    rootSuccessors[method] = true;
+                    visit(method);
+                }
+            }
+            immediateDominators = new int[root + 1];
+            Arrays.fill(immediateDominators, -1);
+            immediateDominators[root] = root;
+            findImmediateDominators();
+            children = new ArrayList<>(root + 1);
+            for (int method = 0; method <= root; ++method) {
+                children.add(new ArrayList<>());
+            }
+            attachChildren();
+        }
+
+        public List<Integer> getChildren(int method) {
+            return children.get(method);
+        }
+
+        private static boolean isEntryPoint(Method method) {
+            return method.isCtor() || !method.isPrivate();
+        }
+
+        /**
+         * Numbers methods reachable from given one in postorder of depth-first search.
+         *
+         * @param start first method
+         */
+        private void visit(int start) {
+            discovered[start] = true;
+            frames[0] = start;
+            framePositions[0] = 0;
+            int depth = 1;
+            while (depth > 0) {
+                final int method = frames[depth - 1];
+                if (framePositions[depth - 1] < successors[method].length) {
+                    final int successor = successors[method][framePositions[depth - 1]];
+                    ++framePositions[depth - 1];
+                    if (!discovered[successor]) {
+                        discovered[successor] = true;
+                        frames[depth] = successor;
+                        framePositions[depth] = 0;
+                        ++depth;
+                    }
+                }
+                else {
+                    --depth;
+                    postorderNumbers[method] = postorderCount;
+                    postorder[postorderCount] = method;
+                    ++postorderCount;
+                }
+            }
+        }
+
+        private void findImmediateDominators() {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int number = root - 1; number >= 0; --number) {
+                    final int method = postorder[number];
+                    int dominator = -1;
+                    if (rootSuccessors[method]) {
+                        dominator = root;
+                    }
+                    for (final int predecessor : predecessors[method]) {
+                        if (immediateDominators[predecessor] >= 0) {
+                            if (dominator < 0) {
+                                dominator = predecessor;
+                            }
+                            else {
+                                dominator = intersect(predecessor, dominator);
+                            }
+                        }
+                    }
+                    if (dominator != immediateDominators[method]) {
+                        immediateDominators[method] = dominator;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        private int intersect(int first, int second) {
+            int firstFinger = first;
+            int secondFinger = second;
+            while (firstFinger != secondFinger) {
+                while (postorderNumbers[firstFinger] < postorderNumbers[secondFinger]) {
+                    firstFinger = immediateDominators[firstFinger];
+                }
+                while (postorderNumbers[secondFinger] < postorderNumbers[firstFinger]) {
+                    secondFinger = immediateDominators[secondFinger];
+                }
+            }
+            return firstFinger;
+        }
+
+        /**
+         * Orders children of each method by appearance of their calls in it, children which
+         * are not called directly follow in appearance order.
+         */
+        private void attachChildren() {
+            final boolean[] attached = new boolean[root];
+            for (int method = 0; method < root; ++method) {
+                for (final int successor : successors[method]) {
+                    if (immediateDominators[successor] == method && !attached[successor]) {
+                        attached[successor] = true;
+                        children.get(method).add(successor);
+                    }
+                }
+            }
+            for (int method = 0; method < root; ++method) {
+                if (!attached[method]) {
+                    children.get(immediateDominators[method]).add(method);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,322 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.github.sevntu.checkstyle.ordering.Method;
+import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
+
+/**
+ * Evolves population of orderings by genetic algorithm.
+ * <p>
+ * Offsprings are bred from parents chosen by tournament using order crossover and mutated by
+ * moving a method to another position. The best orderings of each generation survive to the
+ * next one. Offsprings are bred and evaluated in parallel on a {@link ForkJoinPool}. Each
+ * offspring uses its own random generator derived from the seed, generation and position in
+ * population, so result does not depend on parallelism.
+ * </p>
+ * <p>
+ * Population may be seeded with result of {@link TopologicalMethodReorderer} and with the
+ * initial ordering, the rest is filled with random orderings. Result is the best ordering of
+ * the last generation. At least one best ordering survives to the next generation, so result
+ * is never worse than any seed.
+ * </p>
+ */
+public class GeneticMethodReorderer implements MethodReorderer {
+
+    public static final int DEFAULT_POPULATION_SIZE = 64;
+
+    public static final int DEFAULT_GENERATIONS_COUNT = 100;
+
+    public static final int DEFAULT_ELITE_SIZE = 2;
+
+    public static final float DEFAULT_MUTATION_RATE = 0.3f;
+
+    public static final long DEFAULT_SEED = 1;
+
+    private static final long SEED_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private static final int DEFAULT_SCREEN_LINES_COUNT = 50;
+
+    private final int screenLinesCount = DEFAULT_SCREEN_LINES_COUNT;
+
+    private final PenaltyCalculator calculator = new PenaltyCalculator();
+
+    private int populationSize = DEFAULT_POPULATION_SIZE;
+
+    private int generationsCount = DEFAULT_GENERATIONS_COUNT;
+
+    private int eliteSize = DEFAULT_ELITE_SIZE;
+
+    private float mutationRate = DEFAULT_MUTATION_RATE;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private long seed = DEFAULT_SEED;
+
+    private boolean seedWithTopological = true;
+
+    private boolean seedWithInitial = true;
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder) {
+        return reorder(initialMethodOrder, ReorderingBudget.unlimited());
+    }
+
+    /**
+     * Evolves population until the last generation or until budget is exhausted. Progress is
+     * reported after each generation.
+     *
+     * @param initialMethodOrder ordering to improve
+     * @param budget time limit, cancellation token and progress listener
+     * @return the best ordering of the last generation
+     */
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder, ReorderingBudget budget) {
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        final MethodOrder result;
+        try {
+            List<Individual> population = pool.submit(() -> {
+                return createPopulation(initialMethodOrder, budget);
+            }).join();
+            long evaluations = population.size();
+            budget.reportProgress(population.get(0).penalty, evaluations);
+            for (int generation = 1; generation <= generationsCount && !budget.isExhausted()
+                && initialMethodOrder.getMethods().size() > 1; ++generation) {
+                final List<Individual> parents = population;
+                final int currentGeneration = generation;
+                population = pool.submit(() -> {
+                    return breed(parents, currentGeneration);
+                }).join();
+                evaluations += population.size();
+                budget.reportProgress(population.get(0).penalty, evaluations);
+            }
+            result = population.get(0).order;
+        }
+        finally {
+            pool.shutdown();
+        }
+        return result;
+    }
+
+    private List<Individual> createPopulation(MethodOrder initialMethodOrder,
+                                              ReorderingBudget budget) {
+        final List<MethodOrder> seeds = new ArrayList<>();
+        if (seedWithTopological) {
+            seeds.add(new TopologicalMethodReorderer().reorder(initialMethodOrder, budget));
+        }
+        if (seedWithInitial) {
+            seeds.add(initialMethodOrder);
+        }
+        return IntStream.range(0, Math.max(populationSize, seeds.size()))
+            .parallel()
+            .mapToObj(index -> {
+                final MethodOrder order;
+                if (index < seeds.size()) {
+                    order = seeds.get(index);
+                }
+                else {
+                    final List<Method> methods = new ArrayList<>(initialMethodOrder.getMethods());
+                    Collections.shuffle(methods, getRandom(0, index));
+                    order = initialMethodOrder.reorder(methods);
+                }
+                return new Individual(order);
+            })
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    private List<Individual> breed(List<Individual> parents, int generation) {
+        final int survivorsCount = Math.max(1, Math.min(eliteSize, parents.size()));
+        return IntStream.range(0, parents.size())
+            .parallel()
+            .mapToObj(index -> {
+                final Individual result;
+                if (index < survivorsCount) {
+                    result = parents.get(index);
+                }
+                else {
+                    final Random random = getRandom(generation, index);
+                    final MethodOrder offspring = crossover(select(parents, random),
+                        select(parents, random), random);
+                    result = new Individual(mutate(offspring, random));
+                }
+                return result;
+            })
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    private Random getRandom(int generation, int index) {
+        return new Random((seed * SEED_MULTIPLIER + generation) * SEED_MULTIPLIER + index);
+    }
+
+    /**
+     * Chooses the better of two random individuals. Population is sorted by penalty, so the
+     * one with lesser index is chosen.
+     *
+     * @param population population sorted by penalty
+     * @param random random generator
+     * @return ordering of chosen individual
+     */
+    private static MethodOrder select(List<Individual> population, Random random) {
+        final int index = Math.min(random.nextInt(population.size()),
+            random.nextInt(population.size()));
+        return population.get(index).order;
+    }
+
+    /**
+     * Order crossover. Offspring takes a random slice of the first parent at the same
+     * positions, the rest of positions are filled with the remaining methods in order they
+     * appear in the second parent starting after the slice.
+     *
+     * @param first first parent
+     * @param second second parent
+     * @param random random generator
+     * @return offspring
+     */
+    private static MethodOrder crossover(MethodOrder first, MethodOrder second, Random random) {
+        final List<Method> firstMethods = first.getMethods();
+        final List<Method> secondMethods = second.getMethods();
+        final int methodsCount = firstMethods.size();
+        final int sliceStart = random.nextInt(methodsCount);
+        final int sliceEnd = sliceStart + random.nextInt(methodsCount - sliceStart) + 1;
+        final Method[] offspring = new Method[methodsCount];
+        final boolean[] taken = new boolean[methodsCount];
+        for (int index = sliceStart; index < sliceEnd; ++index) {
+            offspring[index] = firstMethods.get(index);
+            taken[offspring[index].getInitialIndex()] = true;
+        }
+        int filledIndex = sliceEnd % methodsCount;
+        for (int offset = 0; offset < methodsCount; ++offset) {
+            final Method method = secondMethods.get((sliceEnd + offset) % methodsCount);
+            if (!taken[method.getInitialIndex()]) {
+                offspring[filledIndex] = method;
+                filledIndex = (filledIndex + 1) % methodsCount;
+            }
+        }
+        final List<Method> result = new ArrayList<>(methodsCount);
+        Collections.addAll(result, offspring);
+        return first.reorder(result);
+    }
+
+    private MethodOrder mutate(MethodOrder order, Random random) {
+        MethodOrder result = order;
+        final List<Method> methods = order.getMethods();
+        if (methods.size() > 1 && random.nextFloat() < mutationRate) {
+            final int index = random.nextInt(methods.size());
+            final int newIndex = random.nextInt(methods.size());
+            result = order.moveMethodBy(methods.get(index), newIndex - index);
+        }
+        return result;
+    }
+
+    public int getPopulationSize() {
+        return populationSize;
+    }
+
+    public void setPopulationSize(int populationSize) {
+        this.populationSize = populationSize;
+    }
+
+    public int getGenerationsCount() {
+        return generationsCount;
+    }
+
+    public void setGenerationsCount(int generationsCount) {
+        this.generationsCount = generationsCount;
+    }
+
+    public int getEliteSize() {
+        return eliteSize;
+    }
+
+    public void setEliteSize(int eliteSize) {
+        this.eliteSize = eliteSize;
+    }
+
+    public float getMutationRate() {
+        return mutationRate;
+    }
+
+    public void setMutationRate(float mutationRate) {
+        this.mutationRate = mutationRate;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public boolean isSeedWithTopological() {
+        return seedWithTopological;
+    }
+
+    public void setSeedWithTopological(boolean seedWithTopological) {
+        this.seedWithTopological = seedWithTopological;
+    }
+
+    public boolean isSeedWithInitial() {
+        return seedWithInitial;
+    }
+
+    public void setSeedWithInitial(boolean seedWithInitial) {
+        this.seedWithInitial = seedWithInitial;
+    }
+
+    /**
+     * Ordering with its penalty, individuals are compared by penalty.
+     */
+    private final class Individual implements Comparable<Individual> {
+
+        private final MethodOrder order;
+
+        private final float penalty;
+
+        private Individual(MethodOrder order) {
+            this.order = order;
+            penalty = calculator.getPenalty(order, screenLinesCount);
+        }
+
+        @Override
+        public int compareTo(Individual other) {
+            return Float.compare(penalty, other.penalty);
+        }
+    }
+}
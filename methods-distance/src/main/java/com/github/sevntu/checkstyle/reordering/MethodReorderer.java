@@ -20,8 +20,41 @@
 package com.github.sevntu.checkstyle.reordering;
 
 import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
 
 public interface MethodReorderer {
 
     MethodOrder reorder(MethodOrder methodOrder);
+
+    /**
+     * Reorders methods within budget. Once budget is exhausted, reorderer returns the best
+     * ordering found so far. Default implementation ignores budget and reorders methods
+     * completely, so it is only kept by reorderers running in about linear time of call graph
+     * size, like {@link StronglyConnectedComponentsMethodReorderer} and
+     * {@link DominatorMethodReorderer}. Iterative reorderers override it.
+     *
+     * @param methodOrder ordering to improve
+     * @param budget time limit, cancellation token and progress listener
+     * @return the best ordering found
+     */
+    default MethodOrder reorder(MethodOrder methodOrder, ReorderingBudget budget) {
+        return reorder(methodOrder);
+    }
+
+    /**
+     * Reorders methods within budget and reports penalty of the result together with lower
+     * bound of penalty of any ordering of the class and gap between them.
+     *
+     * @param methodOrder ordering to improve
+     * @param budget time limit, cancellation token and progress listener
+     * @param calculator calculator of penalty and its lower bound
+     * @param screenLinesCount estimated line count that fit on screen at once
+     * @return the best ordering found with its optimality gap
+     */
+    default ReorderingResult reorder(MethodOrder methodOrder, ReorderingBudget budget,
+                                     PenaltyCalculator calculator, int screenLinesCount) {
+        final MethodOrder result = reorder(methodOrder, budget);
+        return new ReorderingResult(result,
+            calculator.getOptimalityGap(result, screenLinesCount));
+    }
 }
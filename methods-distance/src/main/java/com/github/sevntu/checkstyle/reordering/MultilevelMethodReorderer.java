@@ -0,0 +1,358 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.github.sevntu.checkstyle.ordering.Method;
+import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
+
+/**
+ * Multilevel reorderer for very large classes.
+ * <p>
+ * Call graph is coarsened by heavy edge matching: each cluster is merged with unmatched
+ * neighbour it shares most dependencies with, caller goes first, and clusters left without
+ * unmatched neighbours join the group of their heaviest neighbour next to it, unless the
+ * group already has {@link #MAX_GROUP_SIZE} clusters. Coarsening stops when at most
+ * {@link #COARSEST_SIZE} clusters are left or less than a tenth of clusters is merged.
+ * The coarsest level is solved by moving each cluster to the best position among the nearest
+ * {@link #COARSEST_SEARCH_RADIUS} clusters at each side, which covers every position of a
+ * small level, and repeating passes while some cluster is moved. Then levels are expanded back
+ * one by one. On each level every cluster is moved as a block to the best position among the
+ * nearest {@link #getRefinementRadius()} clusters at each side, if it decreases penalty. Block moves are scored by incremental deltas over
+ * the moved range only, so each level is refined in time roughly linear in method count.
+ * Result never has greater penalty than the initial ordering.
+ * </p>
+ */
+public class MultilevelMethodReorderer implements MethodReorderer {
+
+    public static final int DEFAULT_REFINEMENT_RADIUS = 3;
+
+    /** Maximal number of clusters merged into one cluster of the next level. */
+    public static final int MAX_GROUP_SIZE = 4;
+
+    /** Number of clusters coarsening stops at. */
+    public static final int COARSEST_SIZE = 16;
+
+    /** Number of positions at each side a cluster of the coarsest level is tried at. */
+    public static final int COARSEST_SEARCH_RADIUS = 64;
+
+    /** Maximal number of passes over the coarsest level. */
+    private static final int MAX_COARSEST_PASSES = 10;
+
+    private static final int DEFAULT_SCREEN_LINES_COUNT = 50;
+
+    /** Minimal share of clusters merged on a level to continue coarsening. */
+    private static final double MIN_COARSENING_RATIO = 0.1;
+
+    private final int screenLinesCount = DEFAULT_SCREEN_LINES_COUNT;
+
+    private final PenaltyCalculator calculator = new PenaltyCalculator();
+
+    private int refinementRadius = DEFAULT_REFINEMENT_RADIUS;
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder) {
+        return reorder(initialMethodOrder, ReorderingBudget.unlimited());
+    }
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder, ReorderingBudget budget) {
+        final List<List<Cluster>> levels = new ArrayList<>();
+        levels.add(getMethodClusters(initialMethodOrder));
+        List<Cluster> coarsest = levels.get(0);
+        while (coarsest.size() > COARSEST_SIZE) {
+            final List<Cluster> next = coarsen(coarsest);
+            if (coarsest.size() - next.size() < coarsest.size() * MIN_COARSENING_RATIO) {
+                break;
+            }
+            levels.add(next);
+            coarsest = next;
+        }
+        final List<Method> methods = new ArrayList<>();
+        coarsest.forEach(cluster -> cluster.addMethods(methods));
+        final List<Cluster> clusters = new ArrayList<>(coarsest);
+        MethodOrder result = initialMethodOrder.reorder(methods);
+        long evaluations = 0;
+        boolean moved = true;
+        for (int pass = 0; moved && pass < MAX_COARSEST_PASSES && !budget.isExhausted();
+            ++pass) {
+            final MethodOrder passOrder = result;
+            evaluations += clusters.size() * 2L * COARSEST_SEARCH_RADIUS;
+            result = refine(result, clusters, COARSEST_SEARCH_RADIUS, budget);
+            moved = result != passOrder;
+        }
+        for (int level = levels.size() - 2; level >= 0 && !budget.isExhausted(); --level) {
+            final List<Cluster> expanded = new ArrayList<>();
+            clusters.forEach(cluster -> expanded.addAll(cluster.children));
+            clusters.clear();
+            clusters.addAll(expanded);
+            evaluations += clusters.size() * 2L * refinementRadius;
+            result = refine(result, clusters, refinementRadius, budget);
+            budget.reportProgress(calculator.getPenalty(result, screenLinesCount), evaluations);
+        }
+        if (calculator.getPenalty(result, screenLinesCount)
+            > calculator.getPenalty(initialMethodOrder, screenLinesCount)) {
+            result = initialMethodOrder;
+        }
+        return result;
+    }
+
+    private static List<Cluster> getMethodClusters(MethodOrder order) {
+        final Map<Method, Cluster> clusters = new LinkedHashMap<>();
+        for (final Method method : order.getMethods()) {
+            clusters.put(method, new Cluster(method));
+        }
+        for (final Cluster caller : clusters.values()) {
+            for (final Method callee
+                : order.getMethodDependenciesInAppearanceOrder(caller.firstMethod)) {
+                if (!callee.equals(caller.firstMethod)) {
+                    caller.addCallee(clusters.get(callee), 1);
+                }
+            }
+        }
+        return new ArrayList<>(clusters.values());
+    }
+
+    /**
+     * Merges clusters by heavy edge matching in order of their appearance. Clusters left
+     * unmatched join the group of their heaviest neighbour.
+     *
+     * @param clusters clusters of current level
+     * @return clusters of the next level in order of their first children
+     */
+    private static List<Cluster> coarsen(List<Cluster> clusters) {
+        final Map<Cluster, List<Cluster>> groups = new HashMap<>();
+        for (final Cluster cluster : clusters) {
+            if (!groups.containsKey(cluster)) {
+                final Cluster mate = cluster.getHeaviestNeighbour(
+                    neighbour -> !groups.containsKey(neighbour));
+                if (mate != null) {
+                    final List<Cluster> group = new ArrayList<>();
+                    group.add(cluster);
+                    addToGroup(group, mate, cluster);
+                    groups.put(cluster, group);
+                    groups.put(mate, group);
+                }
+            }
+        }
+        for (final Cluster cluster : clusters) {
+            if (!groups.containsKey(cluster)) {
+                final Cluster neighbour = cluster.getHeaviestNeighbour(
+                    candidate -> groups.containsKey(candidate)
+                        && groups.get(candidate).size() < MAX_GROUP_SIZE);
+                final List<Cluster> group;
+                if (neighbour == null) {
+                    group = new ArrayList<>();
+                }
+                else {
+                    group = groups.get(neighbour);
+                }
+                addToGroup(group, cluster, neighbour);
+                groups.put(cluster, group);
+            }
+        }
+        final List<Cluster> result = new ArrayList<>();
+        for (final Cluster cluster : clusters) {
+            if (cluster.parent == null) {
+                result.add(new Cluster(groups.get(cluster)));
+            }
+        }
+        clusters.forEach(Cluster::addCalleesToParent);
+        return result;
+    }
+
+    /**
+     * Adds cluster to group next to the neighbour it joins: right before the neighbour if
+     * cluster calls it more than it is called by the neighbour, and right after it otherwise.
+     *
+     * @param group group of clusters
+     * @param cluster cluster to add
+     * @param neighbour neighbour from the group or null
+     */
+    private static void addToGroup(List<Cluster> group, Cluster cluster, Cluster neighbour) {
+        if (neighbour == null) {
+            group.add(cluster);
+        }
+        else if (cluster.getCallsCount(neighbour) > neighbour.getCallsCount(cluster)) {
+            group.add(group.indexOf(neighbour), cluster);
+        }
+        else {
+            group.add(group.indexOf(neighbour) + 1, cluster);
+        }
+    }
+
+    /**
+     * Moves each cluster to the best nearby position.
+     *
+     * @param order ordering where each cluster is contiguous
+     * @param clusters clusters in order of their appearance, updated in place
+     * @param radius number of positions at each side cluster is tried at
+     * @param budget time limit and cancellation token
+     * @return improved ordering
+     */
+    private MethodOrder refine(MethodOrder order, List<Cluster> clusters, int radius,
+                               ReorderingBudget budget) {
+        MethodOrder result = order;
+        for (int index = 0; index < clusters.size() && !budget.isExhausted(); ++index) {
+            final Cluster cluster = clusters.get(index);
+            int bestTarget = index;
+            int bestShift = 0;
+            float bestDelta = 0;
+            for (int target = Math.max(0, index - radius);
+                target <= Math.min(clusters.size() - 1, index + radius); ++target) {
+                if (target != index) {
+                    final int shift = getShift(result, clusters, index, target);
+                    final float delta = calculator.getMoveDelta(result, cluster.firstMethod,
+                        cluster.size, shift, screenLinesCount);
+                    if (delta < bestDelta) {
+                        bestDelta = delta;
+                        bestTarget = target;
+                        bestShift = shift;
+                    }
+                }
+            }
+            if (bestTarget != index) {
+                result = result.moveMethodsBy(cluster.firstMethod, cluster.size, bestShift);
+                clusters.remove(index);
+                clusters.add(bestTarget, cluster);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calculates shift which moves cluster to the given position in list of clusters.
+     *
+     * @param order ordering where each cluster is contiguous
+     * @param clusters clusters in order of their appearance
+     * @param index current position of cluster
+     * @param target new position of cluster
+     * @return shift of the first method of cluster
+     */
+    private static int getShift(MethodOrder order, List<Cluster> clusters, int index,
+                                int target) {
+        final Cluster cluster = clusters.get(index);
+        final Cluster targetCluster = clusters.get(target);
+        final int start = order.getMethodIndex(cluster.firstMethod);
+        final int targetStart = order.getMethodIndex(targetCluster.firstMethod);
+        final int result;
+        if (target < index) {
+            result = targetStart - start;
+        }
+        else {
+            result = targetStart + targetCluster.size - cluster.size - start;
+        }
+        return result;
+    }
+
+    public int getRefinementRadius() {
+        return refinementRadius;
+    }
+
+    public void setRefinementRadius(int refinementRadius) {
+        this.refinementRadius = refinementRadius;
+    }
+
+    /**
+     * Group of methods which are kept contiguous on some level of coarsening.
+     */
+    private static final class Cluster {
+
+        private final List<Cluster> children;
+
+        private final Method firstMethod;
+
+        private final int size;
+
+        /** Dependencies count by callee clusters of the same level. */
+        private final Map<Cluster, Integer> callees = new LinkedHashMap<>();
+
+        /** Dependencies count in both directions by neighbour clusters of the same level. */
+        private final Map<Cluster, Integer> neighbours = new LinkedHashMap<>();
+
+        private Cluster parent;
+
+        private Cluster(Method method) {
+            children = Collections.emptyList();
+            firstMethod = method;
+            size = 1;
+        }
+
+        private Cluster(List<Cluster> children) {
+            this.children = children;
+            firstMethod = children.get(0).firstMethod;
+            size = children.stream().mapToInt(child -> child.size).sum();
+            children.forEach(child -> child.parent = this);
+        }
+
+        public void addCallee(Cluster callee, int callsCount) {
+            callees.merge(callee, callsCount, Integer::sum);
+            neighbours.merge(callee, callsCount, Integer::sum);
+            callee.neighbours.merge(this, callsCount, Integer::sum);
+        }
+
+        /**
+         * Finds neighbour sharing most dependencies with this cluster.
+         *
+         * @param suitable condition on neighbour
+         * @return neighbour or null if there is no suitable one
+         */
+        public Cluster getHeaviestNeighbour(Predicate<Cluster> suitable) {
+            Cluster result = null;
+            int resultWeight = 0;
+            for (final Map.Entry<Cluster, Integer> neighbour : neighbours.entrySet()) {
+                if (neighbour.getValue() > resultWeight && suitable.test(neighbour.getKey())) {
+                    result = neighbour.getKey();
+                    resultWeight = neighbour.getValue();
+                }
+            }
+            return result;
+        }
+
+        public void addCalleesToParent() {
+            for (final Map.Entry<Cluster, Integer> callee : callees.entrySet()) {
+                if (parent != callee.getKey().parent) {
+                    parent.addCallee(callee.getKey().parent, callee.getValue());
+                }
+            }
+        }
+
+        public int getCallsCount(Cluster callee) {
+            return callees.getOrDefault(callee, 0);
+        }
+
+        public void addMethods(List<Method> methods) {
+            if (children.isEmpty()) {
+                methods.add(firstMethod);
+            }
+            else {
+                children.forEach(child -> child.addMethods(methods));
+            }
+        }
+    }
+}
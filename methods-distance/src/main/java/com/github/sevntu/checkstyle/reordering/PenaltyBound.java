@@ -0,0 +1,53 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Penalty of the best ordering found so far by any of reorderers sharing the bound. Bound only
+ * decreases. Searches skip orderings which can not get below it and publish orderings which
+ * do. Bounds are thread-safe.
+ */
+public final class PenaltyBound {
+
+    private final AtomicInteger penaltyBits;
+
+    public PenaltyBound(float penalty) {
+        penaltyBits = new AtomicInteger(Float.floatToIntBits(penalty));
+    }
+
+    public float get() {
+        return Float.intBitsToFloat(penaltyBits.get());
+    }
+
+    /**
+     * Lowers bound to given penalty if it is less than the bound.
+     *
+     * @param penalty penalty of an ordering
+     */
+    public void offer(float penalty) {
+        int bits = penaltyBits.get();
+        while (penalty < Float.intBitsToFloat(bits)
+            && !penaltyBits.compareAndSet(bits, Float.floatToIntBits(penalty))) {
+            bits = penaltyBits.get();
+        }
+    }
+}
@@ -0,0 +1,298 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
+
+/**
+ * Runs several reorderers concurrently and returns the best ordering found before the shared
+ * deadline.
+ * <p>
+ * Incumbent starts with the initial ordering, so the result is never worse than it. Each
+ * finished strategy offers its ordering to the incumbent. Penalty of the ordering is evaluated
+ * with the incumbent penalty as upper bound, so evaluation of losers stops early. Running
+ * strategies share {@link PenaltyBound} through their budget: searches publish improvements
+ * to it and bounded evaluations of branch and bound read it, so no strategy spends time on
+ * orderings which can not beat another strategy. When deadline expires, unfinished strategies
+ * are cancelled and given a short grace period, strategies still running after it are left
+ * behind on daemon threads. Ties are resolved in favour of the initial
+ * ordering and then of the strategy added first. Strategy which throws an exception is skipped.
+ * Names of the strategy which produced the last result and of failed strategies are available
+ * from {@link #getLastStrategyName()} and {@link #getLastFailedStrategyNames()}, so instance
+ * should not be shared between threads.
+ * </p>
+ */
+public class PortfolioMethodReorderer implements MethodReorderer {
+
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 2000;
+
+    /** Strategy name of result when no strategy finishes in time. */
+    public static final String INITIAL_ORDERING_NAME = "initial";
+
+    /** Time given to strategies to return their results after cancellation. */
+    private static final long CANCELLATION_GRACE_MILLIS = 50;
+
+    private static final int DEFAULT_SCREEN_LINES_COUNT = 50;
+
+    private final int screenLinesCount = DEFAULT_SCREEN_LINES_COUNT;
+
+    private final PenaltyCalculator calculator = new PenaltyCalculator();
+
+    private final Map<String, MethodReorderer> strategies = new LinkedHashMap<>();
+
+    private long timeLimitMillis = DEFAULT_TIME_LIMIT_MILLIS;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private String lastStrategyName;
+
+    private List<String> lastFailedStrategyNames = Collections.emptyList();
+
+    /**
+     * Creates portfolio of all reorderers of this package with default settings.
+     */
+    public PortfolioMethodReorderer() {
+        this(getDefaultStrategies());
+    }
+
+    /**
+     * Creates portfolio of given strategies.
+     *
+     * @param strategies reorderers by their names, in order of preference
+     */
+    public PortfolioMethodReorderer(Map<String, MethodReorderer> strategies) {
+        this.strategies.putAll(strategies);
+    }
+
+    private static Map<String, MethodReorderer> getDefaultStrategies() {
+        final Map<String, MethodReorderer> result = new LinkedHashMap<>();
+        result.put("topological", new TopologicalMethodReorderer());
+        result.put("branch-and-bound", new BranchAndBoundMethodReorderer());
+        result.put("tabu-search", new TabuSearchMethodReorderer());
+        result.put("simulated-annealing", new SimulatedAnnealingMethodReorderer());
+        result.put("genetic", new GeneticMethodReorderer());
+        return result;
+    }
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder) {
+        return reorder(initialMethodOrder, ReorderingBudget.unlimited());
+    }
+
+    /**
+     * Runs strategies with budget restricted by the time limit. Strategies share cancellation
+     * token which is cancelled when the budget is exhausted, strategies supporting budget
+     * are given a short grace period to return the best ordering they found so far. Threads
+     * of strategies are interrupted then, the call does not wait for strategies which ignore
+     * both cancellation and interruption.
+     *
+     * @param initialMethodOrder ordering to improve
+     * @param budget time limit, cancellation token and progress listener
+     * @return the best ordering found by strategies
+     */
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder, ReorderingBudget budget) {
+        final CancellationToken strategiesToken =
+            new CancellationToken(budget.getCancellationToken());
+        final List<String> names = new ArrayList<>(strategies.keySet());
+        final Incumbent incumbent = new Incumbent(initialMethodOrder);
+        final ReorderingBudget strategiesBudget = budget.restrict(timeLimitMillis)
+            .withCancellationToken(strategiesToken).withPenaltyBound(incumbent.bound);
+        final ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(parallelism, names.size())), runnable -> {
+                final Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            });
+        final List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int strategy = 0; strategy < names.size(); ++strategy) {
+                final int strategyIndex = strategy;
+                futures.add(executor.submit(() -> {
+                    final MethodOrder order = strategies.get(names.get(strategyIndex))
+                        .reorder(initialMethodOrder, strategiesBudget);
+                    incumbent.offer(order, strategyIndex);
+                }));
+            }
+            if (!awaitAll(futures, strategiesBudget)) {
+                strategiesToken.cancel();
+                awaitAll(futures, new ReorderingBudget(CANCELLATION_GRACE_MILLIS));
+            }
+        }
+        finally {
+            strategiesToken.cancel();
+            shutdown(executor);
+        }
+        lastFailedStrategyNames = new ArrayList<>();
+        for (int strategy = 0; strategy < names.size(); ++strategy) {
+            if (isFailed(futures.get(strategy))) {
+                lastFailedStrategyNames.add(names.get(strategy));
+            }
+        }
+        synchronized (incumbent) {
+            if (incumbent.strategyIndex < 0) {
+                lastStrategyName = INITIAL_ORDERING_NAME;
+            }
+            else {
+                lastStrategyName = names.get(incumbent.strategyIndex);
+            }
+            return incumbent.order;
+        }
+    }
+
+    /**
+     * Waits for futures until all of them are done or budget is exhausted. Failure of a future
+     * does not stop waiting for the rest of them.
+     *
+     * @param futures futures of strategies
+     * @param budget time limit
+     * @return whether all futures are done
+     */
+    private static boolean awaitAll(List<Future<?>> futures, ReorderingBudget budget) {
+        boolean result = true;
+        for (int index = 0; result && index < futures.size(); ++index) {
+            try {
+                futures.get(index).get(budget.getRemainingNanos(), TimeUnit.NANOSECONDS);
+            }
+            catch (ExecutionException ignored) {
+                // failed strategy is reported by getLastFailedStrategyNames
+                result = futures.get(index).isDone();
+            }
+            catch (TimeoutException ignored) {
+                result = false;
+            }
+            catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+                result = false;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isFailed(Future<?> future) {
+        boolean result = false;
+        if (future.isDone() && !future.isCancelled()) {
+            try {
+                future.get();
+            }
+            catch (ExecutionException ignored) {
+                result = true;
+            }
+            catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Interrupts strategies and waits for their threads to finish within the grace period.
+     *
+     * @param executor executor of strategies
+     */
+    private static void shutdown(ExecutorService executor) {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(CANCELLATION_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String getLastStrategyName() {
+        return lastStrategyName;
+    }
+
+    public List<String> getLastFailedStrategyNames() {
+        return Collections.unmodifiableList(lastFailedStrategyNames);
+    }
+
+    public Map<String, MethodReorderer> getStrategies() {
+        return Collections.unmodifiableMap(strategies);
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public void setTimeLimitMillis(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * The best ordering offered so far and index of strategy which produced it.
+     */
+    private final class Incumbent {
+
+        private final PenaltyBound bound;
+
+        private MethodOrder order;
+
+        private float penalty;
+
+        private int strategyIndex = -1;
+
+        private Incumbent(MethodOrder initialOrder) {
+            order = initialOrder;
+            penalty = calculator.getPenalty(initialOrder, screenLinesCount);
+            bound = new PenaltyBound(penalty);
+        }
+
+        public void offer(MethodOrder offered, int offeredStrategyIndex) {
+            final float upperBound;
+            synchronized (this) {
+                upperBound = penalty;
+            }
+            final float offeredPenalty =
+                calculator.getPenalty(offered, screenLinesCount, upperBound);
+            synchronized (this) {
+                if (offeredPenalty < penalty || offeredPenalty == penalty
+                    && strategyIndex >= 0 && offeredStrategyIndex < strategyIndex) {
+                    order = offered;
+                    penalty = offeredPenalty;
+                    strategyIndex = offeredStrategyIndex;
+                    bound.offer(offeredPenalty);
+                }
+            }
+        }
+    }
+}
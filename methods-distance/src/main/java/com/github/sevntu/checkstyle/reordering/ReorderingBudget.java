@@ -0,0 +1,184 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
+
+/**
+ * Limits on reordering: a time limit counted from creation of budget and a cancellation
+ * token. Reorderers check the budget between steps and return the best ordering found so far
+ * once it is exhausted. Budget also carries listener of progress and may carry penalty bound
+ * shared by reorderers running concurrently.
+ */
+public final class ReorderingBudget {
+
+    private static final float NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static final ReorderingProgressListener NO_LISTENER =
+        (bestPenalty, evaluations, evaluationsPerSecond) -> {
+            // progress is ignored
+        };
+
+    private final long startTime;
+
+    private final long timeLimitNanos;
+
+    private final CancellationToken cancellationToken;
+
+    private final ReorderingProgressListener listener;
+
+    private final Optional<PenaltyBound> penaltyBound;
+
+    public ReorderingBudget(long timeLimitMillis) {
+        this(timeLimitMillis, new CancellationToken(), NO_LISTENER);
+    }
+
+    public ReorderingBudget(long timeLimitMillis, CancellationToken cancellationToken,
+                            ReorderingProgressListener listener) {
+        this(System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(timeLimitMillis),
+            cancellationToken, listener, Optional.empty());
+    }
+
+    private ReorderingBudget(long startTime, long timeLimitNanos,
+                             CancellationToken cancellationToken,
+                             ReorderingProgressListener listener,
+                             Optional<PenaltyBound> penaltyBound) {
+        this.startTime = startTime;
+        this.timeLimitNanos = timeLimitNanos;
+        this.cancellationToken = cancellationToken;
+        this.listener = listener;
+        this.penaltyBound = penaltyBound;
+    }
+
+    /**
+     * Creates budget without time limit which is never cancelled.
+     *
+     * @return unlimited budget
+     */
+    public static ReorderingBudget unlimited() {
+        return new ReorderingBudget(Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates budget which also expires after given time from now.
+     *
+     * @param timeLimitMillis time limit
+     * @return budget with the same cancellation token and listener
+     */
+    public ReorderingBudget restrict(long timeLimitMillis) {
+        final long now = System.nanoTime();
+        return new ReorderingBudget(now, Math.min(TimeUnit.MILLISECONDS.toNanos(timeLimitMillis),
+            timeLimitNanos - (now - startTime)), cancellationToken, listener, penaltyBound);
+    }
+
+    /**
+     * Creates budget with the same time limit and listener, but another cancellation token.
+     *
+     * @param token cancellation token
+     * @return budget
+     */
+    public ReorderingBudget withCancellationToken(CancellationToken token) {
+        return new ReorderingBudget(startTime, timeLimitNanos, token, listener, penaltyBound);
+    }
+
+    /**
+     * Creates budget with the same limits and listener which shares given penalty bound.
+     *
+     * @param bound penalty bound
+     * @return budget
+     */
+    public ReorderingBudget withPenaltyBound(PenaltyBound bound) {
+        return new ReorderingBudget(startTime, timeLimitNanos, cancellationToken, listener,
+            Optional.of(bound));
+    }
+
+    public boolean isExhausted() {
+        return cancellationToken.isCancelled() || getElapsedNanos() >= timeLimitNanos;
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - startTime;
+    }
+
+    public long getTimeLimitNanos() {
+        return timeLimitNanos;
+    }
+
+    public long getRemainingNanos() {
+        return Math.max(0, timeLimitNanos - getElapsedNanos());
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * Returns penalty of the best ordering found by reorderers sharing the bound.
+     *
+     * @return shared penalty bound or positive infinity if budget has no bound
+     */
+    public float getPenaltyBound() {
+        return penaltyBound.map(PenaltyBound::get).orElse(Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Lowers shared penalty bound to exact penalty of an ordering.
+     *
+     * @param penalty penalty of ordering
+     */
+    public void offerPenalty(float penalty) {
+        penaltyBound.ifPresent(bound -> bound.offer(penalty));
+    }
+
+    /**
+     * Offers ordering improved by a search to shared penalty bound. Ordering is evaluated only
+     * when penalty estimated by the search is below the bound, evaluation stops once partial
+     * penalty exceeds the bound.
+     *
+     * @param order ordering
+     * @param estimatedPenalty penalty of ordering tracked by search
+     * @param calculator penalty calculator
+     * @param screenLinesCount estimated line count that fit on screen at once
+     */
+    public void offerOrdering(MethodOrder order, float estimatedPenalty,
+                              PenaltyCalculator calculator, int screenLinesCount) {
+        penaltyBound.ifPresent(bound -> {
+            final float upperBound = bound.get();
+            if (estimatedPenalty < upperBound) {
+                bound.offer(calculator.getPenalty(order, screenLinesCount, upperBound));
+            }
+        });
+    }
+
+    /**
+     * Notifies listener of progress.
+     *
+     * @param bestPenalty penalty of the best ordering found so far
+     * @param evaluations number of evaluated orderings
+     */
+    public void reportProgress(float bestPenalty, long evaluations) {
+        listener.onProgress(bestPenalty, evaluations,
+            evaluations * NANOS_PER_SECOND / Math.max(1, getElapsedNanos()));
+    }
+}
@@ -0,0 +1,37 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+/**
+ * Receives progress of reordering. Reorderers which run in parallel may notify listener from
+ * several threads.
+ */
+@FunctionalInterface
+public interface ReorderingProgressListener {
+
+    /**
+     * Called when reordering finds a better ordering or completes a step.
+     *
+     * @param bestPenalty penalty of the best ordering found so far
+     * @param evaluations number of evaluated orderings
+     * @param evaluationsPerSecond evaluation rate since start of reordering
+     */
+    void onProgress(float bestPenalty, long evaluations, float evaluationsPerSecond);
+}
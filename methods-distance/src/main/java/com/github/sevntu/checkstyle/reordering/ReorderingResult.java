@@ -0,0 +1,64 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.OptimalityGap;
+
+/**
+ * Ordering produced by reorderer together with its penalty and lower bound of penalty of any
+ * ordering of the class.
+ */
+public final class ReorderingResult {
+
+    private final MethodOrder methodOrder;
+
+    private final OptimalityGap optimalityGap;
+
+    ReorderingResult(MethodOrder methodOrder, OptimalityGap optimalityGap) {
+        this.methodOrder = methodOrder;
+        this.optimalityGap = optimalityGap;
+    }
+
+    public MethodOrder getMethodOrder() {
+        return methodOrder;
+    }
+
+    public OptimalityGap getOptimalityGap() {
+        return optimalityGap;
+    }
+
+    public float getPenalty() {
+        return optimalityGap.getPenalty();
+    }
+
+    public float getLowerBound() {
+        return optimalityGap.getLowerBound();
+    }
+
+    public float getGap() {
+        return optimalityGap.getGap();
+    }
+
+    @Override
+    public String toString() {
+        return optimalityGap.toString();
+    }
+}
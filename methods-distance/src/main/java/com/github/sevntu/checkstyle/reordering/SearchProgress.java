@@ -0,0 +1,76 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Best penalty found by a search as function of penalty evaluations spent. Each improvement
+ * of the best penalty is recorded together with number of evaluations made so far.
+ */
+public final class SearchProgress {
+
+    private final List<Long> evaluations = new ArrayList<>();
+
+    private final List<Float> bestPenalties = new ArrayList<>();
+
+    private long totalEvaluations;
+
+    public int getImprovementsCount() {
+        return bestPenalties.size();
+    }
+
+    public long getEvaluations(int improvement) {
+        return evaluations.get(improvement);
+    }
+
+    public float getBestPenalty(int improvement) {
+        return bestPenalties.get(improvement);
+    }
+
+    public float getBestPenalty() {
+        return bestPenalties.get(bestPenalties.size() - 1);
+    }
+
+    public long getTotalEvaluations() {
+        return totalEvaluations;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder(64);
+        for (int improvement = 0; improvement < bestPenalties.size(); ++improvement) {
+            result.append(evaluations.get(improvement)).append(": ")
+                .append(bestPenalties.get(improvement)).append('\n');
+        }
+        return result.append(totalEvaluations).append(" evaluations total").toString();
+    }
+
+    void addImprovement(long evaluationsSpent, float bestPenalty) {
+        evaluations.add(evaluationsSpent);
+        bestPenalties.add(bestPenalty);
+        totalEvaluations = evaluationsSpent;
+    }
+
+    void setTotalEvaluations(long totalEvaluations) {
+        this.totalEvaluations = totalEvaluations;
+    }
+}
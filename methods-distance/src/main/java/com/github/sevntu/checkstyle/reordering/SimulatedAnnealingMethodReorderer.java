@@ -0,0 +1,172 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import java.util.List;
+import java.util.Random;
+
+import com.github.sevntu.checkstyle.ordering.Method;
+import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
+
+/**
+ * Improves result of {@link TopologicalMethodReorderer} by simulated annealing over method
+ * moves and swaps. Temperature is lowered by the number of evaluations only, so search
+ * which is not stopped early depends on seed only. Search stops when either evaluation budget
+ * or time budget is spent, so the cost of reordering is capped. Time limit is unlimited by
+ * default and acts as a hard stop only. Result never has greater penalty than the
+ * topological ordering. Budget given to {@link #reorder(MethodOrder, ReorderingBudget)} is
+ * further restricted by the time limit.
+ */
+public class SimulatedAnnealingMethodReorderer implements MethodReorderer {
+
+    public static final int DEFAULT_MAX_EVALUATIONS = 20000;
+
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = Long.MAX_VALUE;
+
+    public static final long DEFAULT_SEED = 1;
+
+    private static final int DEFAULT_SCREEN_LINES_COUNT = 50;
+
+    /** Temperature at the end of search relative to the initial temperature. */
+    private static final double FINAL_TEMPERATURE_RATIO = 0.001;
+
+    /** Initial temperature relative to the penalty of starting ordering. */
+    private static final double INITIAL_TEMPERATURE_RATIO = 0.02;
+
+    private final int screenLinesCount = DEFAULT_SCREEN_LINES_COUNT;
+
+    private final PenaltyCalculator calculator = new PenaltyCalculator();
+
+    private final MethodReorderer startingReorderer = new TopologicalMethodReorderer();
+
+    private int maxEvaluations = DEFAULT_MAX_EVALUATIONS;
+
+    private long timeLimitMillis = DEFAULT_TIME_LIMIT_MILLIS;
+
+    private long seed = DEFAULT_SEED;
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder) {
+        return reorder(initialMethodOrder, ReorderingBudget.unlimited());
+    }
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder, ReorderingBudget budget) {
+        final ReorderingBudget searchBudget = budget.restrict(timeLimitMillis);
+        final MethodOrder startingOrder =
+            startingReorderer.reorder(initialMethodOrder, searchBudget);
+        final MethodOrder result;
+        if (startingOrder.getMethods().size() > 1) {
+            result = anneal(startingOrder, searchBudget);
+        }
+        else {
+            result = startingOrder;
+        }
+        return result;
+    }
+
+    private MethodOrder anneal(MethodOrder startingOrder, ReorderingBudget budget) {
+        final Random random = new Random(seed);
+        final float startingPenalty = calculator.getPenalty(startingOrder, screenLinesCount);
+        final double initialTemperature =
+            Math.max(1, startingPenalty * INITIAL_TEMPERATURE_RATIO);
+        MethodOrder current = startingOrder;
+        float currentPenalty = startingPenalty;
+        MethodOrder best = startingOrder;
+        float bestPenalty = startingPenalty;
+        for (int evaluation = 0; evaluation < maxEvaluations; ++evaluation) {
+            if (budget.isExhausted()) {
+                break;
+            }
+            final double temperature = initialTemperature
+                * Math.pow(FINAL_TEMPERATURE_RATIO, (double) evaluation / maxEvaluations);
+            final RandomMove move = new RandomMove(current, random);
+            final float delta = move.delta;
+            if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                current = move.candidate;
+                currentPenalty += delta;
+                if (currentPenalty < bestPenalty) {
+                    bestPenalty = currentPenalty;
+                    best = current;
+                    budget.reportProgress(bestPenalty, evaluation + 1);
+                    budget.offerOrdering(best, bestPenalty, calculator, screenLinesCount);
+                }
+            }
+        }
+        final MethodOrder result;
+        if (calculator.getPenalty(best, screenLinesCount) > startingPenalty) {
+            result = startingOrder;
+        }
+        else {
+            result = best;
+        }
+        return result;
+    }
+
+    public int getMaxEvaluations() {
+        return maxEvaluations;
+    }
+
+    public void setMaxEvaluations(int maxEvaluations) {
+        this.maxEvaluations = maxEvaluations;
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public void setTimeLimitMillis(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Random swap of two methods or move of method to position of another method. Ordering
+     * after the move is built once and scored by penalty change within the moved range.
+     */
+    private final class RandomMove {
+
+        private final MethodOrder candidate;
+
+        private final float delta;
+
+        private RandomMove(MethodOrder order, Random random) {
+            final List<Method> methods = order.getMethods();
+            final int index = random.nextInt(methods.size());
+            final int otherIndex = random.nextInt(methods.size());
+            if (random.nextBoolean()) {
+                candidate = order.swapMethods(methods.get(index), methods.get(otherIndex));
+            }
+            else {
+                candidate = order.moveMethodBy(methods.get(index), otherIndex - index);
+            }
+            delta = calculator.getDelta(order, candidate, Math.min(index, otherIndex),
+                Math.max(index, otherIndex), screenLinesCount);
+        }
+    }
+}
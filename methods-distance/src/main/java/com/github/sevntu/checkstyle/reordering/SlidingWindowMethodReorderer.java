@@ -0,0 +1,239 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.github.sevntu.checkstyle.ordering.Method;
+import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
+
+/**
+ * Improves result of another reorderer by exhaustive optimization of windows of consecutive
+ * methods.
+ * <p>
+ * Each pass covers ordering by non-overlapping windows of {@link #getWindowSize()} methods,
+ * and then by windows shifted by half of their size. All permutations of a window are
+ * enumerated by Heap's algorithm and each of them is scored by the penalty of the window
+ * range only. Windows of one cover are solved in parallel against the same ordering, then
+ * their best permutations are applied one by one while they still decrease penalty. Passes
+ * are repeated until no window changes. Window is solved again only when some of its methods,
+ * their dependencies, dependants or group mates were moved since it was solved last time.
+ * </p>
+ * <p>
+ * Window of {@code k} methods costs {@code k!} evaluations, so window size should stay within
+ * about 6 to 8 methods.
+ * </p>
+ */
+public class SlidingWindowMethodReorderer implements MethodReorderer {
+
+    public static final int DEFAULT_WINDOW_SIZE = 6;
+
+    private static final int DEFAULT_SCREEN_LINES_COUNT = 50;
+
+    private final int screenLinesCount = DEFAULT_SCREEN_LINES_COUNT;
+
+    private final PenaltyCalculator calculator = new PenaltyCalculator();
+
+    private final MethodReorderer startingReorderer;
+
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+
+    public SlidingWindowMethodReorderer() {
+        this(new TopologicalMethodReorderer());
+    }
+
+    public SlidingWindowMethodReorderer(MethodReorderer startingReorderer) {
+        this.startingReorderer = startingReorderer;
+    }
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder) {
+        return reorder(initialMethodOrder, ReorderingBudget.unlimited());
+    }
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder, ReorderingBudget budget) {
+        MethodOrder result = startingReorderer.reorder(initialMethodOrder, budget);
+        final LongAdder evaluations = new LongAdder();
+        final boolean[][] changed = new boolean[2][result.getMethods().size()];
+        Arrays.fill(changed[0], windowSize > 1);
+        Arrays.fill(changed[1], windowSize > 1);
+        while (isChanged(changed) && !budget.isExhausted()) {
+            for (int cover = 0; cover < changed.length; ++cover) {
+                result = optimizeWindows(result, cover, changed, budget, evaluations);
+            }
+            budget.reportProgress(calculator.getPenalty(result, screenLinesCount),
+                evaluations.sum());
+        }
+        return result;
+    }
+
+    /**
+     * Solves non-overlapping windows of one cover in parallel and applies their solutions.
+     * Only windows containing methods marked as changed for this cover are solved, then all
+     * marks of this cover are cleared. Methods of applied windows, their dependencies,
+     * dependants and group mates are marked as changed for both covers.
+     *
+     * @param order ordering
+     * @param cover index of cover, odd cover is shifted by half of window
+     * @param changed marks of changed methods by cover and initial index
+     * @param budget time limit and cancellation token
+     * @param evaluations counter of evaluated permutations
+     * @return improved ordering
+     */
+    private MethodOrder optimizeWindows(MethodOrder order, int cover, boolean[][] changed,
+                                        ReorderingBudget budget, LongAdder evaluations) {
+        final int methodsCount = order.getMethods().size();
+        final int offset = cover * (windowSize / 2);
+        final List<Integer> starts = IntStream
+            .iterate(offset, start -> start + windowSize)
+            .limit(Math.max(0, (methodsCount - offset - 2 + windowSize) / windowSize))
+            .filter(start -> isWindowChanged(order, start, changed[cover]))
+            .boxed()
+            .collect(Collectors.toList());
+        final List<Optional<List<Method>>> solutions = starts.parallelStream()
+            .map(start -> solveWindow(order, start,
+                Math.min(windowSize, methodsCount - start), budget, evaluations))
+            .collect(Collectors.toList());
+        Arrays.fill(changed[cover], false);
+        MethodOrder result = order;
+        float resultPenalty = calculator.getPenalty(result, screenLinesCount);
+        for (int window = 0; window < solutions.size(); ++window) {
+            if (solutions.get(window).isPresent()) {
+                final List<Method> methods = new ArrayList<>(result.getMethods());
+                final List<Method> solution = solutions.get(window).get();
+                final int start = starts.get(window);
+                for (int position = 0; position < solution.size(); ++position) {
+                    methods.set(start + position, solution.get(position));
+                }
+                final MethodOrder candidate = result.reorder(methods);
+                final float penalty =
+                    calculator.getPenalty(candidate, screenLinesCount, resultPenalty);
+                if (penalty < resultPenalty) {
+                    result = candidate;
+                    resultPenalty = penalty;
+                    markChanged(result, solution, changed);
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<Method> getWindow(MethodOrder order, int start) {
+        final List<Method> methods = order.getMethods();
+        return methods.subList(start, Math.min(start + windowSize, methods.size()));
+    }
+
+    private boolean isWindowChanged(MethodOrder order, int start, boolean... changed) {
+        return getWindow(order, start).stream()
+            .anyMatch(method -> changed[method.getInitialIndex()]);
+    }
+
+    private static void markChanged(MethodOrder order, List<Method> window,
+                                    boolean[]... changed) {
+        for (final Method method : window) {
+            final List<Method> neighbours =
+                new ArrayList<>(order.getMethodDependenciesInAppearanceOrder(method));
+            neighbours.addAll(order.getMethodDependants(method));
+            neighbours.addAll(order.getGroupMates(method));
+            neighbours.add(method);
+            for (final boolean[] coverChanged : changed) {
+                for (final Method neighbour : neighbours) {
+                    coverChanged[neighbour.getInitialIndex()] = true;
+                }
+            }
+        }
+    }
+
+    private static boolean isChanged(boolean[]... changed) {
+        boolean result = false;
+        for (final boolean[] coverChanged : changed) {
+            for (final boolean methodChanged : coverChanged) {
+                result |= methodChanged;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the best permutation of window by Heap's algorithm. Each permutation is scored
+     * against the penalty of the window in the given ordering.
+     *
+     * @param order ordering
+     * @param start first index of window
+     * @param size size of window
+     * @param budget time limit and cancellation token
+     * @param evaluations counter of evaluated permutations
+     * @return methods of window in the best order if it is better than the current one
+     */
+    private Optional<List<Method>> solveWindow(MethodOrder order, int start, int size,
+                                               ReorderingBudget budget,
+                                               LongAdder evaluations) {
+        final int end = start + size - 1;
+        final float windowPenalty =
+            calculator.getRangePenalty(order, start, end, screenLinesCount);
+        final List<Method> window = new ArrayList<>(order.getMethods().subList(start, end + 1));
+        final int[] counters = new int[size];
+        float bestDelta = 0;
+        Optional<List<Method>> result = Optional.empty();
+        int level = 1;
+        while (level < size && !budget.isExhausted()) {
+            if (counters[level] < level) {
+                if (level % 2 == 0) {
+                    Collections.swap(window, 0, level);
+                }
+                else {
+                    Collections.swap(window, counters[level], level);
+                }
+                final float delta = calculator.getRangePenalty(
+                    order.reorderWindow(start, window), start, end, screenLinesCount)
+                    - windowPenalty;
+                evaluations.increment();
+                if (delta < bestDelta) {
+                    bestDelta = delta;
+                    result = Optional.of(new ArrayList<>(window));
+                }
+                ++counters[level];
+                level = 1;
+            }
+            else {
+                counters[level] = 0;
+                ++level;
+            }
+        }
+        return result;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+    }
+}
@@ -0,0 +1,483 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.github.sevntu.checkstyle.ordering.Method;
+import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
+
+/**
+ * Orders methods by Fiedler vector of Laplacian of call graph.
+ * <p>
+ * Call graph is treated as undirected graph where each dependency adds unit weight to the
+ * edge between caller and callee. Methods adjacent in appearance order are additionally
+ * joined by edges of small weight, so the graph is connected and ties follow appearance
+ * order. Fiedler vector is the eigenvector of the smallest eigenvalue of Laplacian {@code L}
+ * on the subspace orthogonal to constant vector. It is found by explicitly restarted Lanczos
+ * algorithm: each restart builds orthonormal Krylov basis of {@link #KRYLOV_DIMENSION}
+ * vectors deflated against constant vector, and takes Ritz vector of the smallest eigenvalue
+ * of the projected tridiagonal matrix as the next start. Restarts stop when residual
+ * {@code ||Lx - qx||}, where {@code q} is Rayleigh quotient, falls below tolerance relative
+ * to the bound of the largest eigenvalue, or when {@link #getMaxIterations()} Laplacian
+ * multiplications are spent. Iteration starts from appearance order. Each multiplication
+ * takes O(V + E) time and reorthogonalization takes O(V) time per basis vector.
+ * </p>
+ * <p>
+ * Sorting methods by their components of the vector gives a globally informed linear
+ * arrangement. Of the two directions of the arrangement the one with lower penalty is
+ * returned. Result is meant as a starting ordering of other reorderers on large classes.
+ * </p>
+ */
+public class SpectralMethodReorderer implements MethodReorderer {
+
+    public static final int DEFAULT_MAX_ITERATIONS = 2000;
+
+    /** Size of Krylov basis built by each restart of Lanczos algorithm. */
+    public static final int KRYLOV_DIMENSION = 30;
+
+    public static final double DEFAULT_TOLERANCE = 1e-9;
+
+    private static final int DEFAULT_SCREEN_LINES_COUNT = 50;
+
+    /** Weight of edge between methods adjacent in appearance order. */
+    private static final double APPEARANCE_EDGE_WEIGHT = 0.01;
+
+    /** Steps of bisection, enough to reach double precision. */
+    private static final int BISECTION_STEPS = 100;
+
+    /** Steps of inverse iteration with shift which approximates eigenvalue closely. */
+    private static final int INVERSE_ITERATION_STEPS = 3;
+
+    private final int screenLinesCount = DEFAULT_SCREEN_LINES_COUNT;
+
+    private final PenaltyCalculator calculator = new PenaltyCalculator();
+
+    private int maxIterations = DEFAULT_MAX_ITERATIONS;
+
+    private double tolerance = DEFAULT_TOLERANCE;
+
+    private boolean lastResultConverged;
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder) {
+        return reorder(initialMethodOrder, ReorderingBudget.unlimited());
+    }
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder, ReorderingBudget budget) {
+        final List<Method> methods = initialMethodOrder.getMethods();
+        final MethodOrder result;
+        lastResultConverged = true;
+        if (methods.size() > 2) {
+            final double[] fiedlerVector =
+                getFiedlerVector(new Laplacian(initialMethodOrder), budget);
+            final List<Method> arrangement = new ArrayList<>(methods);
+            arrangement.sort(Comparator.comparingDouble(
+                method -> fiedlerVector[initialMethodOrder.getMethodIndex(method)]));
+            final MethodOrder forward = initialMethodOrder.reorder(arrangement);
+            Collections.reverse(arrangement);
+            final MethodOrder backward = initialMethodOrder.reorder(arrangement);
+            final float forwardPenalty = calculator.getPenalty(forward, screenLinesCount);
+            final float backwardPenalty =
+                calculator.getPenalty(backward, screenLinesCount, forwardPenalty);
+            if (backwardPenalty < forwardPenalty) {
+                result = backward;
+                budget.reportProgress(backwardPenalty, 2);
+            }
+            else {
+                result = forward;
+                budget.reportProgress(forwardPenalty, 2);
+            }
+        }
+        else {
+            result = initialMethodOrder;
+        }
+        return result;
+    }
+
+    private double[] getFiedlerVector(Laplacian laplacian, ReorderingBudget budget) {
+        final int size = laplacian.size();
+        double[] result = new double[size];
+        for (int index = 0; index < size; ++index) {
+            result[index] = index;
+        }
+        normalize(result);
+        final int dimension = Math.min(size - 1, KRYLOV_DIMENSION);
+        final double residualBound = tolerance * laplacian.getNormBound();
+        double residual = laplacian.getResidual(result);
+        for (int iterations = 0; iterations < maxIterations && residual > residualBound
+            && !budget.isExhausted(); iterations += dimension + 1) {
+            result = getRitzVector(laplacian, result, dimension, budget);
+            residual = laplacian.getResidual(result);
+        }
+        lastResultConverged = residual <= residualBound;
+        return result;
+    }
+
+    /**
+     * Builds Krylov basis from the start vector by Lanczos algorithm with full
+     * reorthogonalization and finds Ritz vector of the smallest Ritz value.
+     *
+     * @param laplacian Laplacian
+     * @param start unit start vector orthogonal to constant vector
+     * @param dimension maximal size of basis
+     * @param budget time limit and cancellation token
+     * @return unit Ritz vector orthogonal to constant vector
+     */
+    private static double[] getRitzVector(Laplacian laplacian, double[] start, int dimension,
+                                          ReorderingBudget budget) {
+        final double[][] basis = new double[dimension][];
+        final double[] alphas = new double[dimension];
+        final double[] betas = new double[dimension];
+        basis[0] = start;
+        int count = 0;
+        boolean invariant = false;
+        while (count < dimension && !invariant && !budget.isExhausted()) {
+            final double[] next = laplacian.multiply(basis[count]);
+            alphas[count] = dot(next, basis[count]);
+            orthogonalize(next, basis, count + 1);
+            orthogonalize(next, basis, count + 1);
+            betas[count] = normalize(next);
+            ++count;
+            if (count < dimension) {
+                invariant = betas[count - 1] <= Double.MIN_NORMAL;
+                basis[count] = next;
+            }
+        }
+        final double[] result = new double[start.length];
+        if (count == 0) {
+            System.arraycopy(start, 0, result, 0, start.length);
+        }
+        else {
+            final double[] coefficients = getSmallestEigenvector(alphas, betas, count);
+            for (int vector = 0; vector < count; ++vector) {
+                for (int index = 0; index < result.length; ++index) {
+                    result[index] += coefficients[vector] * basis[vector][index];
+                }
+            }
+            normalize(result);
+        }
+        return result;
+    }
+
+    /**
+     * Subtracts from vector its projections on orthonormal vectors.
+     *
+     * @param vector vector to change in place
+     * @param basis orthonormal vectors
+     * @param count number of vectors to use
+     */
+    private static void orthogonalize(double[] vector, double[][] basis, int count) {
+        for (int basisVector = 0; basisVector < count; ++basisVector) {
+            final double projection = dot(vector, basis[basisVector]);
+            for (int index = 0; index < vector.length; ++index) {
+                vector[index] -= projection * basis[basisVector][index];
+            }
+        }
+    }
+
+    private static double dot(double[] first, double... second) {
+        double result = 0;
+        for (int index = 0; index < first.length; ++index) {
+            result += first[index] * second[index];
+        }
+        return result;
+    }
+
+    /**
+     * Finds eigenvector of the smallest eigenvalue of symmetric tridiagonal matrix. Eigenvalue
+     * is bracketed by bisection on positive definiteness of the shifted matrix, then
+     * eigenvector is found by inverse iteration with shift just below the eigenvalue.
+     *
+     * @param diagonal diagonal of matrix
+     * @param offDiagonal elements next to diagonal, element {@code i} joins rows {@code i}
+     *     and {@code i + 1}
+     * @param size size of matrix
+     * @return eigenvector
+     */
+    private static double[] getSmallestEigenvector(double[] diagonal, double[] offDiagonal,
+                                                   int size) {
+        double lower = Double.MAX_VALUE;
+        double upper = -Double.MAX_VALUE;
+        for (int index = 0; index < size; ++index) {
+            final double radius = getOffDiagonal(offDiagonal, size, index - 1)
+                + getOffDiagonal(offDiagonal, size, index);
+            lower = Math.min(lower, diagonal[index] - radius);
+            upper = Math.max(upper, diagonal[index] + radius);
+        }
+        final double scale = Math.max(1, upper - lower);
+        lower -= scale;
+        for (int step = 0; step < BISECTION_STEPS; ++step) {
+            final double middle = (lower + upper) / 2;
+            if (isPositiveDefinite(diagonal, offDiagonal, size, middle)) {
+                lower = middle;
+            }
+            else {
+                upper = middle;
+            }
+        }
+        final double shift = lower - Math.ulp(scale);
+        double[] result = new double[size];
+        Arrays.fill(result, 1);
+        for (int step = 0; step < INVERSE_ITERATION_STEPS; ++step) {
+            result = solveShifted(diagonal, offDiagonal, size, shift, result);
+            final double norm = Math.sqrt(dot(result, result));
+            for (int index = 0; index < size; ++index) {
+                result[index] /= norm;
+            }
+        }
+        return result;
+    }
+
+    private static double getOffDiagonal(double[] offDiagonal, int size, int index) {
+        final double result;
+        if (index >= 0 && index < size - 1) {
+            result = Math.abs(offDiagonal[index]);
+        }
+        else {
+            result = 0;
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether tridiagonal matrix minus shift is positive definite by signs of pivots
+     * of its LDL decomposition.
+     *
+     * @param diagonal diagonal of matrix
+     * @param offDiagonal elements next to diagonal
+     * @param size size of matrix
+     * @param shift shift
+     * @return whether all pivots are positive
+     */
+    private static boolean isPositiveDefinite(double[] diagonal, double[] offDiagonal,
+                                              int size, double shift) {
+        double pivot = diagonal[0] - shift;
+        for (int index = 1; index < size && pivot > 0; ++index) {
+            pivot = diagonal[index] - shift
+                - offDiagonal[index - 1] * offDiagonal[index - 1] / pivot;
+        }
+        return pivot > 0;
+    }
+
+    /**
+     * Solves {@code (T - shift * I) x = rhs} for tridiagonal positive definite
+     * {@code T - shift * I} by LDL decomposition.
+     *
+     * @param diagonal diagonal of matrix
+     * @param offDiagonal elements next to diagonal
+     * @param size size of matrix
+     * @param shift shift
+     * @param rhs right hand side
+     * @return solution
+     */
+    private static double[] solveShifted(double[] diagonal, double[] offDiagonal, int size,
+                                         double shift, double... rhs) {
+        final double[] pivots = new double[size];
+        final double[] result = new double[size];
+        pivots[0] = diagonal[0] - shift;
+        result[0] = rhs[0];
+        for (int index = 1; index < size; ++index) {
+            final double factor = offDiagonal[index - 1] / pivots[index - 1];
+            pivots[index] = diagonal[index] - shift - factor * offDiagonal[index - 1];
+            result[index] = rhs[index] - factor * result[index - 1];
+        }
+        result[size - 1] /= pivots[size - 1];
+        for (int index = size - 2; index >= 0; --index) {
+            result[index] = (result[index] - offDiagonal[index] * result[index + 1])
+                / pivots[index];
+        }
+        return result;
+    }
+
+    /**
+     * Projects out constant vector and scales vector to unit length.
+     *
+     * @param vector vector to normalize in place
+     * @return length of vector after projection
+     */
+    private static double normalize(double... vector) {
+        double mean = 0;
+        for (final double value : vector) {
+            mean += value;
+        }
+        mean /= vector.length;
+        double norm = 0;
+        for (int index = 0; index < vector.length; ++index) {
+            vector[index] -= mean;
+            norm += vector[index] * vector[index];
+        }
+        norm = Math.sqrt(norm);
+        if (norm > 0) {
+            for (int index = 0; index < vector.length; ++index) {
+                vector[index] /= norm;
+            }
+        }
+        return norm;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Limits residual of Fiedler vector relative to the bound of the largest eigenvalue of
+     * Laplacian.
+     *
+     * @param tolerance relative residual at which iteration stops
+     */
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Whether residual of Fiedler vector found by the last reordering is within tolerance.
+     *
+     * @return false if iteration was stopped by the limit of iterations or by budget
+     */
+    public boolean isLastResultConverged() {
+        return lastResultConverged;
+    }
+
+    /**
+     * Sparse Laplacian of call graph indexed by method positions in appearance order. Edge of
+     * unit weight is stored once for each dependency.
+     */
+    private static final class Laplacian {
+
+        private final int[] neighboursStarts;
+
+        private final int[] neighbours;
+
+        private final double[] degrees;
+
+        /** Upper bound of the largest eigenvalue. */
+        private double normBound;
+
+        private Laplacian(MethodOrder order) {
+            final List<Method> methods = order.getMethods();
+            final int size = methods.size();
+            final List<List<Integer>> adjacency = new ArrayList<>(size);
+            for (int index = 0; index < size; ++index) {
+                adjacency.add(new ArrayList<>());
+            }
+            int edgesCount = 0;
+            for (int index = 0; index < size; ++index) {
+                for (final Method callee
+                    : order.getMethodDependenciesInAppearanceOrder(methods.get(index))) {
+                    final int calleeIndex = order.getMethodIndex(callee);
+                    if (calleeIndex != index) {
+                        adjacency.get(index).add(calleeIndex);
+                        adjacency.get(calleeIndex).add(index);
+                        edgesCount += 2;
+                    }
+                }
+            }
+            neighboursStarts = new int[size + 1];
+            neighbours = new int[edgesCount];
+            degrees = new double[size];
+            int position = 0;
+            for (int index = 0; index < size; ++index) {
+                neighboursStarts[index] = position;
+                for (final int neighbour : adjacency.get(index)) {
+                    neighbours[position] = neighbour;
+                    degrees[index] += 1;
+                    ++position;
+                }
+            }
+            neighboursStarts[size] = position;
+            for (int index = 0; index < size; ++index) {
+                if (index > 0) {
+                    degrees[index] += APPEARANCE_EDGE_WEIGHT;
+                }
+                if (index < size - 1) {
+                    degrees[index] += APPEARANCE_EDGE_WEIGHT;
+                }
+                normBound = Math.max(normBound, 2 * degrees[index]);
+            }
+        }
+
+        public int size() {
+            return degrees.length;
+        }
+
+        public double getNormBound() {
+            return normBound;
+        }
+
+        /**
+         * Multiplies vector by Laplacian.
+         *
+         * @param vector vector
+         * @return product
+         */
+        public double[] multiply(double... vector) {
+            final int size = size();
+            final double[] result = new double[size];
+            for (int index = 0; index < size; ++index) {
+                double value = degrees[index] * vector[index];
+                for (int position = neighboursStarts[index];
+                    position < neighboursStarts[index + 1]; ++position) {
+                    value -= vector[neighbours[position]];
+                }
+                if (index > 0) {
+                    value -= APPEARANCE_EDGE_WEIGHT * vector[index - 1];
+                }
+                if (index < size - 1) {
+                    value -= APPEARANCE_EDGE_WEIGHT * vector[index + 1];
+                }
+                result[index] = value;
+            }
+            return result;
+        }
+
+        /**
+         * Calculates residual {@code ||Lx - qx||} of unit vector, where {@code q} is
+         * Rayleigh quotient of the vector.
+         *
+         * @param vector unit vector
+         * @return norm of residual
+         */
+        public double getResidual(double... vector) {
+            final double[] product = multiply(vector);
+            final double quotient = dot(product, vector);
+            double result = 0;
+            for (int index = 0; index < vector.length; ++index) {
+                final double component = product[index] - quotient * vector[index];
+                result += component * component;
+            }
+            return Math.sqrt(result);
+        }
+    }
+}
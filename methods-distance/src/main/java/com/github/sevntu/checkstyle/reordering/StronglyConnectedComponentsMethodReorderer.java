@@ -0,0 +1,83 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.sevntu.checkstyle.ordering.Method;
+import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.StronglyConnectedComponents;
+
+/**
+ * Orders methods by strongly connected components of call graph.
+ * <p>
+ * Components are found by Tarjan's algorithm and laid out contiguously in topological order
+ * of condensation, so callers precede callees unless they belong to the same recursive cycle.
+ * Depth-first search visits roots and callees in reverse appearance order, thus in reverse
+ * postorder of components ties are resolved in appearance order. Methods of one component
+ * keep their relative order. Reordering takes O(V + E) time, thus budget is not checked and
+ * the default {@link MethodReorderer#reorder(MethodOrder, ReorderingBudget)} is used.
+ * </p>
+ */
+public class StronglyConnectedComponentsMethodReorderer implements MethodReorderer {
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder) {
+        final List<Method> methods = initialMethodOrder.getMethods();
+        final StronglyConnectedComponents search =
+            new StronglyConnectedComponents(getCallees(initialMethodOrder));
+        for (int index = methods.size() - 1; index >= 0; --index) {
+            search.visit(methods.get(index).getInitialIndex());
+        }
+        final List<List<Method>> components = new ArrayList<>(search.getComponentsCount());
+        for (int component = 0; component < search.getComponentsCount(); ++component) {
+            components.add(new ArrayList<>());
+        }
+        for (final Method method : methods) {
+            components.get(search.getComponent(method.getInitialIndex())).add(method);
+        }
+        final List<Method> result = new ArrayList<>(methods.size());
+        for (int component = components.size() - 1; component >= 0; --component) {
+            result.addAll(components.get(component));
+        }
+        return initialMethodOrder.reorder(result);
+    }
+
+    /**
+     * Collects callees of each method in reverse appearance order.
+     *
+     * @param order ordering
+     * @return callees by initial index of caller
+     */
+    private static int[][] getCallees(MethodOrder order) {
+        final int[][] result = new int[order.getMethods().size()][];
+        for (final Method method : order.getMethods()) {
+            final List<Method> dependencies = order.getMethodDependenciesInAppearanceOrder(method);
+            final int[] methodCallees = new int[dependencies.size()];
+            for (int index = 0; index < methodCallees.length; ++index) {
+                methodCallees[methodCallees.length - index - 1] =
+                    dependencies.get(index).getInitialIndex();
+            }
+            result[method.getInitialIndex()] = methodCallees;
+        }
+        return result;
+    }
+}
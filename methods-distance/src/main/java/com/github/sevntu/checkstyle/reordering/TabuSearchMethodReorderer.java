@@ -0,0 +1,265 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.reordering;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.github.sevntu.checkstyle.ordering.Method;
+import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
+
+/**
+ * Improves result of {@link TopologicalMethodReorderer} by tabu search.
+ * <p>
+ * Neighbourhood consists of Or-opt moves, which relocate contiguous blocks of up to
+ * {@link #getMaxBlockLength()} methods, and swaps of two methods. Each iteration samples a
+ * number of neighbours and makes the best move, even if it makes penalty greater. Methods
+ * moved recently are tabu unless the move gives penalty better than the best one found
+ * (aspiration criterion). Tabu tenure grows as square root of methods count.
+ * </p>
+ * <p>
+ * Search stops when either evaluation budget or time budget is spent, or budget given to
+ * {@link #reorder(MethodOrder, ReorderingBudget)} is exhausted. Progress of the last
+ * search is available from {@link #getLastProgress()}, so instance should not be shared
+ * between threads.
+ * </p>
+ */
+public class TabuSearchMethodReorderer implements MethodReorderer {
+
+    public static final int DEFAULT_MAX_EVALUATIONS = 20000;
+
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 1000;
+
+    public static final long DEFAULT_SEED = 1;
+
+    public static final int DEFAULT_MAX_BLOCK_LENGTH = 3;
+
+    public static final int DEFAULT_NEIGHBOURS_PER_ITERATION = 30;
+
+    private static final int DEFAULT_SCREEN_LINES_COUNT = 50;
+
+    private final int screenLinesCount = DEFAULT_SCREEN_LINES_COUNT;
+
+    private final PenaltyCalculator calculator = new PenaltyCalculator();
+
+    private final MethodReorderer startingReorderer = new TopologicalMethodReorderer();
+
+    private int maxEvaluations = DEFAULT_MAX_EVALUATIONS;
+
+    private long timeLimitMillis = DEFAULT_TIME_LIMIT_MILLIS;
+
+    private long seed = DEFAULT_SEED;
+
+    private int maxBlockLength = DEFAULT_MAX_BLOCK_LENGTH;
+
+    private int neighboursPerIteration = DEFAULT_NEIGHBOURS_PER_ITERATION;
+
+    private SearchProgress lastProgress = new SearchProgress();
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder) {
+        return reorder(initialMethodOrder, ReorderingBudget.unlimited());
+    }
+
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder, ReorderingBudget budget) {
+        final ReorderingBudget searchBudget = budget.restrict(timeLimitMillis);
+        final MethodOrder startingOrder =
+            startingReorderer.reorder(initialMethodOrder, searchBudget);
+        final SearchProgress progress = new SearchProgress();
+        final MethodOrder result;
+        if (startingOrder.getMethods().size() > 1) {
+            result = search(startingOrder, searchBudget, progress);
+        }
+        else {
+            progress.addImprovement(1, calculator.getPenalty(startingOrder, screenLinesCount));
+            result = startingOrder;
+        }
+        lastProgress = progress;
+        return result;
+    }
+
+    private MethodOrder search(MethodOrder startingOrder, ReorderingBudget budget,
+                               SearchProgress progress) {
+        final int[] tabuUntil = new int[startingOrder.getMethods().size()];
+        final int tenure = getTabuTenure(tabuUntil.length);
+        final Random random = new Random(seed);
+        final float startingPenalty = calculator.getPenalty(startingOrder, screenLinesCount);
+        MethodOrder current = startingOrder;
+        float currentPenalty = startingPenalty;
+        MethodOrder best = startingOrder;
+        float bestPenalty = startingPenalty;
+        long evaluations = 1;
+        progress.addImprovement(evaluations, bestPenalty);
+        for (int iteration = 1; evaluations < maxEvaluations
+            && !budget.isExhausted(); ++iteration) {
+            Neighbour chosen = null;
+            float chosenDelta = Float.POSITIVE_INFINITY;
+            for (int neighbour = 0; neighbour < neighboursPerIteration
+                && evaluations < maxEvaluations; ++neighbour) {
+                final Neighbour candidate = new Neighbour(current, random);
+                final float delta = candidate.delta;
+                ++evaluations;
+                final boolean admissible = !candidate.isTabu(tabuUntil, iteration)
+                    || currentPenalty + delta < bestPenalty;
+                if (admissible && delta < chosenDelta) {
+                    chosen = candidate;
+                    chosenDelta = delta;
+                }
+            }
+            if (chosen != null) {
+                current = chosen.candidate;
+                currentPenalty += chosenDelta;
+                chosen.makeTabu(tabuUntil, iteration + tenure);
+                if (currentPenalty < bestPenalty) {
+                    best = current;
+                    bestPenalty = currentPenalty;
+                    progress.addImprovement(evaluations, bestPenalty);
+                    budget.reportProgress(bestPenalty, evaluations);
+                    budget.offerOrdering(best, bestPenalty, calculator, screenLinesCount);
+                }
+            }
+        }
+        progress.setTotalEvaluations(evaluations);
+        final MethodOrder result;
+        if (calculator.getPenalty(best, screenLinesCount) > startingPenalty) {
+            result = startingOrder;
+        }
+        else {
+            result = best;
+        }
+        return result;
+    }
+
+    private static int getTabuTenure(int methodsCount) {
+        return Math.max(1, Math.min(methodsCount / 3, (int) Math.sqrt(methodsCount) + 1));
+    }
+
+    public SearchProgress getLastProgress() {
+        return lastProgress;
+    }
+
+    public int getMaxEvaluations() {
+        return maxEvaluations;
+    }
+
+    public void setMaxEvaluations(int maxEvaluations) {
+        this.maxEvaluations = maxEvaluations;
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public void setTimeLimitMillis(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public int getMaxBlockLength() {
+        return maxBlockLength;
+    }
+
+    /**
+     * Limits number of consecutive methods moved at once.
+     *
+     * @param maxBlockLength maximal length of moved block, at least 1
+     * @throws IllegalArgumentException if length is not positive
+     */
+    public void setMaxBlockLength(int maxBlockLength) {
+        if (maxBlockLength < 1) {
+            throw new IllegalArgumentException(
+                "Max block length must be positive: " + maxBlockLength);
+        }
+        this.maxBlockLength = maxBlockLength;
+    }
+
+    public int getNeighboursPerIteration() {
+        return neighboursPerIteration;
+    }
+
+    public void setNeighboursPerIteration(int neighboursPerIteration) {
+        this.neighboursPerIteration = neighboursPerIteration;
+    }
+
+    /**
+     * Random Or-opt move of a block of methods to another position or swap of two methods.
+     * Ordering after the move is built once and scored by penalty change within the moved
+     * range. Ordering should contain at least two methods.
+     */
+    private final class Neighbour {
+
+        private final List<Method> movedMethods;
+
+        private final MethodOrder candidate;
+
+        private final float delta;
+
+        private Neighbour(MethodOrder order, Random random) {
+            final List<Method> methods = order.getMethods();
+            final int methodsCount = methods.size();
+            final boolean swap = random.nextBoolean();
+            final int blockLength;
+            if (swap) {
+                blockLength = 1;
+            }
+            else {
+                blockLength = 1 + random.nextInt(Math.min(maxBlockLength, methodsCount - 1));
+            }
+            final int firstIndex = random.nextInt(methodsCount - blockLength + 1);
+            int newFirstIndex = random.nextInt(methodsCount - blockLength);
+            if (newFirstIndex >= firstIndex) {
+                ++newFirstIndex;
+            }
+            if (swap) {
+                movedMethods = Arrays.asList(methods.get(firstIndex),
+                    methods.get(newFirstIndex));
+                candidate = order.swapMethods(movedMethods.get(0), movedMethods.get(1));
+            }
+            else {
+                movedMethods = methods.subList(firstIndex, firstIndex + blockLength);
+                candidate = order.moveMethodsBy(movedMethods.get(0), blockLength,
+                    newFirstIndex - firstIndex);
+            }
+            delta = calculator.getDelta(order, candidate, Math.min(firstIndex, newFirstIndex),
+                Math.max(firstIndex, newFirstIndex) + blockLength - 1, screenLinesCount);
+        }
+
+        public boolean isTabu(int[] tabuUntil, int iteration) {
+            return movedMethods.stream()
+                .anyMatch(method -> tabuUntil[method.getInitialIndex()] > iteration);
+        }
+
+        public void makeTabu(int[] tabuUntil, int iteration) {
+            movedMethods.forEach(method -> {
+                tabuUntil[method.getInitialIndex()] = iteration;
+            });
+        }
+    }
+}
@@ -20,41 +20,177 @@
 package com.github.sevntu.checkstyle.reordering;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Optional;
 import java.util.Queue;
-import java.util.function.Function;
-import java.util.function.Supplier;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 
 import com.github.sevntu.checkstyle.ordering.Method;
 import com.github.sevntu.checkstyle.ordering.MethodOrder;
 import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
 
+/**
+ * Orders methods breadth first from a root method and then improves the ordering by a
+ * pipeline of grouping and dependency optimizations.
+ * <p>
+ * Result is sensitive to the choice of root. By default the only root is the constructor with
+ * the least arguments or the method with the most dependencies. When
+ * {@link #setRootsCount(int)} allows more roots, the pipeline is run in parallel on
+ * {@link #getExecutor()} from the given number of best candidates: constructors by arguments
+ * count followed by the rest of methods by dependencies count. All runs share the budget.
+ * Ordering with the least penalty wins, ties are resolved in favour of the better candidate.
+ * </p>
+ * <p>
+ * Grouping and dependency stages try one candidate move per group or caller. By default
+ * moves are applied one after another. With {@link #setBestImprovement(boolean)} all moves
+ * of a stage are scored in parallel on {@link #getExecutor()} and the best non-conflicting
+ * ones are applied, result is the same for any number of threads.
+ * </p>
+ */
 public class TopologicalMethodReorderer implements MethodReorderer {
 
+    public static final int DEFAULT_ROOTS_COUNT = 1;
+
     private static final int DEFAULT_SCREEN_LINES_COUNT = 50;
 
     private final int screenLinesCount = DEFAULT_SCREEN_LINES_COUNT;
 
     private final PenaltyCalculator calculator = new PenaltyCalculator();
 
+    private int rootsCount = DEFAULT_ROOTS_COUNT;
+
+    private boolean bestImprovement;
+
+    private ExecutorService executor = ForkJoinPool.commonPool();
+
     @Override
     public MethodOrder reorder(MethodOrder initialMethodOrder) {
-        final MethodOrder topologicalMethodOrder = initialMethodOrder.reorder(
-            breadthFirstOrder(initialMethodOrder, getFirstMethod(initialMethodOrder)));
-        return Function.<MethodOrder>identity()
-            .andThen(this::overrideMethodGrouping)
-            .andThen(this::accessorMethodGrouping)
-            .andThen(this::overloadMethodGrouping)
-            .andThen(this::methodDependenciesRelativeOrderOptimization)
-            .andThen(this::methodDependenciesDistanceOptimization)
-            .andThen(this::pullAllCtorsToStart)
-            .apply(topologicalMethodOrder);
+        return reorder(initialMethodOrder, ReorderingBudget.unlimited());
+    }
+
+    /**
+     * Runs pipeline until budget is exhausted. Budget is checked before each move of a stage,
+     * so ordering reached so far is returned shortly after the deadline or cancellation.
+     *
+     * @param initialMethodOrder ordering to improve
+     * @param budget time limit and cancellation token
+     * @return the best ordering found
+     */
+    @Override
+    public MethodOrder reorder(MethodOrder initialMethodOrder, ReorderingBudget budget) {
+        final List<Method> roots = getRootCandidates(initialMethodOrder).stream()
+            .limit(Math.max(1, rootsCount))
+            .collect(Collectors.toList());
+        final List<MethodOrder> orderings;
+        if (roots.size() == 1) {
+            orderings = Collections.singletonList(
+                reorder(initialMethodOrder, roots.get(0), budget));
+        }
+        else {
+            orderings = reorderFromRoots(initialMethodOrder, roots, budget);
+        }
+        MethodOrder result = orderings.get(0);
+        float resultPenalty = calculator.getPenalty(result, screenLinesCount);
+        for (final MethodOrder ordering : orderings.subList(1, orderings.size())) {
+            final float penalty = calculator.getPenalty(ordering, screenLinesCount,
+                resultPenalty);
+            if (penalty < resultPenalty) {
+                result = ordering;
+                resultPenalty = penalty;
+            }
+        }
+        return result;
+    }
+
+    public int getRootsCount() {
+        return rootsCount;
+    }
+
+    public void setRootsCount(int rootsCount) {
+        this.rootsCount = rootsCount;
+    }
+
+    public boolean isBestImprovement() {
+        return bestImprovement;
+    }
+
+    public void setBestImprovement(boolean bestImprovement) {
+        this.bestImprovement = bestImprovement;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets executor of runs from several roots and of scoring moves in best improvement mode.
+     * Each run scores its moves on the same executor, so when both are enabled executor
+     * should support tasks waiting for their subtasks, like {@link ForkJoinPool}.
+     *
+     * @param executor executor
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Runs pipeline from each root on executor.
+     *
+     * @param initialMethodOrder ordering to improve
+     * @param roots roots of breadth first orderings
+     * @param budget time limit and cancellation token shared by all runs
+     * @return orderings in order of roots, or the initial ordering if waiting is interrupted
+     */
+    private List<MethodOrder> reorderFromRoots(MethodOrder initialMethodOrder,
+                                               List<Method> roots, ReorderingBudget budget) {
+        final List<Callable<MethodOrder>> tasks = roots.stream()
+            .map(root -> (Callable<MethodOrder>) () -> reorder(initialMethodOrder, root, budget))
+            .collect(Collectors.toList());
+        final List<MethodOrder> result = new ArrayList<>(roots.size());
+        try {
+            for (final Future<MethodOrder> future : executor.invokeAll(tasks)) {
+                result.add(future.get());
+            }
+        }
+        catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+            result.clear();
+            result.add(initialMethodOrder);
+        }
+        catch (ExecutionException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return result;
+    }
+
+    private MethodOrder reorder(MethodOrder initialMethodOrder, Method root,
+                                ReorderingBudget budget) {
+        final List<UnaryOperator<MethodOrder>> stages = Arrays.asList(
+            order -> overrideMethodGrouping(order, budget),
+            order -> accessorMethodGrouping(order, budget),
+            order -> overloadMethodGrouping(order, budget),
+            order -> methodDependenciesRelativeOrderOptimization(order, budget),
+            order -> methodDependenciesDistanceOptimization(order, budget),
+            this::pullAllCtorsToStart);
+        MethodOrder result = initialMethodOrder.reorder(
+            breadthFirstOrder(initialMethodOrder, root));
+        for (int stage = 0; stage < stages.size() && !budget.isExhausted(); ++stage) {
+            result = stages.get(stage).apply(result);
+        }
+        return result;
     }
 
     private MethodOrder pullAllCtorsToStart(MethodOrder methodOrder) {
@@ -67,68 +203,94 @@ public class TopologicalMethodReorderer implements MethodReorderer {
         return methodOrder.reorder(newOrder);
     }
 
-    private MethodOrder methodDependenciesRelativeOrderOptimization(MethodOrder methodOrder) {
-        MethodOrder currentMethodOrder = methodOrder;
-        for (final Method caller : currentMethodOrder.getMethods()) {
-            final List<Method> dependenciesInAppearanceOrder =
-                currentMethodOrder.getMethodDependenciesInAppearanceOrder(caller);
-            if (dependenciesInAppearanceOrder.size() > 1) {
-                final List<Integer> dependenciesIndices = dependenciesInAppearanceOrder.stream()
-                    .map(currentMethodOrder::getMethodIndex)
-                    .sorted(Integer::compare)
-                    .collect(Collectors.toList());
-                final List<Method> optimized = new ArrayList<>(currentMethodOrder.getMethods());
-                optimized.removeAll(dependenciesInAppearanceOrder);
-                for (int index = 0; index < dependenciesIndices.size(); ++index) {
-                    optimized.add(dependenciesIndices.get(index),
-                            dependenciesInAppearanceOrder.get(index));
-                }
-                final MethodOrder optimizedMethodOrder = currentMethodOrder.reorder(optimized);
-                currentMethodOrder = getBestOrdering(currentMethodOrder, optimizedMethodOrder);
+    private MethodOrder methodDependenciesRelativeOrderOptimization(MethodOrder methodOrder,
+                                                                    ReorderingBudget budget) {
+        final List<CandidateMove> moves = new ArrayList<>();
+        for (final Method caller : methodOrder.getMethods()) {
+            final List<Method> dependencies =
+                methodOrder.getMethodDependenciesInAppearanceOrder(caller);
+            if (dependencies.size() > 1) {
+                moves.add(new CandidateMove(dependencies,
+                    order -> optimizeDependenciesRelativeOrder(order, caller)));
             }
         }
-        return currentMethodOrder;
+        return applyMoves(methodOrder, moves, budget);
+    }
+
+    private static MethodOrder optimizeDependenciesRelativeOrder(MethodOrder currentMethodOrder,
+                                                                 Method caller) {
+        final List<Method> dependenciesInAppearanceOrder =
+            currentMethodOrder.getMethodDependenciesInAppearanceOrder(caller);
+        final List<Integer> dependenciesIndices = dependenciesInAppearanceOrder.stream()
+            .map(currentMethodOrder::getMethodIndex)
+            .sorted(Integer::compare)
+            .collect(Collectors.toList());
+        final List<Method> optimized = new ArrayList<>(currentMethodOrder.getMethods());
+        optimized.removeAll(dependenciesInAppearanceOrder);
+        for (int index = 0; index < dependenciesIndices.size(); ++index) {
+            optimized.add(dependenciesIndices.get(index),
+                    dependenciesInAppearanceOrder.get(index));
+        }
+        return currentMethodOrder.reorder(optimized);
     }
 
-    private MethodOrder methodDependenciesDistanceOptimization(MethodOrder startingOrder) {
-        MethodOrder currentOrder = startingOrder;
+    private MethodOrder methodDependenciesDistanceOptimization(MethodOrder startingOrder,
+                                                               ReorderingBudget budget) {
+        final List<CandidateMove> moves = new ArrayList<>();
         for (final Method caller : startingOrder.getMethods()) {
             final List<Method> dependencies =
-                currentOrder.getMethodDependenciesInAppearanceOrder(caller);
+                startingOrder.getMethodDependenciesInAppearanceOrder(caller);
             if (!dependencies.isEmpty()) {
-                final int callerIndex = currentOrder.getMethodIndex(caller);
-                boolean allDependenciesLocatedAfterCaller = true;
-                for (final Method callee : dependencies) {
-                    allDependenciesLocatedAfterCaller = allDependenciesLocatedAfterCaller
-                        && currentOrder.getMethodIndex(callee) > callerIndex;
-                }
-                if (allDependenciesLocatedAfterCaller) {
-                    final List<Method> allMethods = new ArrayList<>(currentOrder.getMethods());
-                    final List<Method> subList = allMethods.subList(callerIndex, allMethods.size());
-                    subList.removeAll(dependencies);
-                    subList.addAll(1, dependencies);
-                    final MethodOrder optimizedMethodOrder = currentOrder.reorder(allMethods);
-                    currentOrder = getBestOrdering(currentOrder, optimizedMethodOrder);
-                }
+                final List<Method> methods = new ArrayList<>(dependencies);
+                methods.add(caller);
+                moves.add(new CandidateMove(methods,
+                    order -> optimizeDependenciesDistance(order, caller)));
             }
         }
-        return currentOrder;
+        return applyMoves(startingOrder, moves, budget);
     }
 
-    private MethodOrder overloadMethodGrouping(MethodOrder methodOrder) {
+    private static MethodOrder optimizeDependenciesDistance(MethodOrder currentOrder,
+                                                            Method caller) {
+        final List<Method> dependencies =
+            currentOrder.getMethodDependenciesInAppearanceOrder(caller);
+        final int callerIndex = currentOrder.getMethodIndex(caller);
+        boolean allDependenciesLocatedAfterCaller = true;
+        for (final Method callee : dependencies) {
+            allDependenciesLocatedAfterCaller = allDependenciesLocatedAfterCaller
+                && currentOrder.getMethodIndex(callee) > callerIndex;
+        }
+        final MethodOrder result;
+        if (allDependenciesLocatedAfterCaller) {
+            final List<Method> allMethods = new ArrayList<>(currentOrder.getMethods());
+            final List<Method> subList = allMethods.subList(callerIndex, allMethods.size());
+            subList.removeAll(dependencies);
+            subList.addAll(1, dependencies);
+            result = currentOrder.reorder(allMethods);
+        }
+        else {
+            result = currentOrder;
+        }
+        return result;
+    }
+
+    private MethodOrder overloadMethodGrouping(MethodOrder methodOrder,
+                                               ReorderingBudget budget) {
         final List<List<Method>> overloadGroups = methodOrder.getMethods().stream()
             .collect(Collectors.groupingBy(Method::getName))
             .values().stream().filter(list -> list.size() > 1).collect(Collectors.toList());
-        return methodGroupsGrouping(methodOrder, overloadGroups);
+        return methodGroupsGrouping(methodOrder, overloadGroups, budget);
     }
 
-    private MethodOrder overrideMethodGrouping(MethodOrder methodOrder) {
+    private MethodOrder overrideMethodGrouping(MethodOrder methodOrder,
+                                               ReorderingBudget budget) {
         final MethodOrder result;
         final List<Method> overrideMethods = methodOrder.getMethods().stream()
             .filter(Method::isOverride)
             .collect(Collectors.toList());
         if (overrideMethods.size() > 1) {
-            result = methodGroupsGrouping(methodOrder, Collections.singletonList(overrideMethods));
+            result = methodGroupsGrouping(methodOrder, Collections.singletonList(overrideMethods),
+                budget);
         }
         else {
             result = methodOrder;
@@ -136,40 +298,153 @@ public class TopologicalMethodReorderer implements MethodReorderer {
         return result;
     }
 
-    private MethodOrder accessorMethodGrouping(MethodOrder methodOrder) {
+    private MethodOrder accessorMethodGrouping(MethodOrder methodOrder,
+                                               ReorderingBudget budget) {
         final List<List<Method>> accessorGroups = methodOrder.getMethods().stream()
             .filter(method -> method.isGetter() || method.isSetter())
             .collect(Collectors.groupingBy(Method::getAccessiblePropertyName))
             .values().stream()
             .filter(group -> group.size() > 1)
             .collect(Collectors.toList());
-        return methodGroupsGrouping(methodOrder, accessorGroups);
+        return methodGroupsGrouping(methodOrder, accessorGroups, budget);
     }
 
     private MethodOrder methodGroupsGrouping(MethodOrder startingMethodOrder,
-                                             final List<List<Method>> groups) {
+                                             final List<List<Method>> groups,
+                                             ReorderingBudget budget) {
+        final List<CandidateMove> moves = groups.stream()
+            .map(group -> new CandidateMove(group, order -> groupMethods(order, group)))
+            .collect(Collectors.toList());
+        return applyMoves(startingMethodOrder, moves, budget);
+    }
+
+    private static MethodOrder groupMethods(MethodOrder currentMethodOrder,
+                                            List<Method> methodsGroup) {
+        final Method lastMethod = methodsGroup.stream()
+            .sorted(new MethodIndexComparator(currentMethodOrder).reversed())
+            .findFirst().get();
+        final List<Method> nonLastMethodsInGroup = new ArrayList<>(methodsGroup);
+        nonLastMethodsInGroup.remove(lastMethod);
+        final List<Method> optimizedOrdering = new ArrayList<>(currentMethodOrder.getMethods());
+        optimizedOrdering.removeAll(nonLastMethodsInGroup);
+        optimizedOrdering.addAll(currentMethodOrder.getMethodIndex(lastMethod),
+            nonLastMethodsInGroup);
+        return currentMethodOrder.reorder(optimizedOrdering);
+    }
+
+    /**
+     * Applies moves of a stage. By default moves are tried one after another and each one
+     * is kept unless it increases penalty. In best-improvement mode all moves are built from
+     * the same ordering and scored in parallel, then improving moves are applied from the
+     * best one, skipping moves which touch methods of already applied ones. Applied move is
+     * rebuilt from the current ordering and kept only if it still decreases penalty. Rounds
+     * are repeated while some move is applied. Moves are ranked by penalty and then by their
+     * position in the stage, so result does not depend on the executor. Budget is checked
+     * before each move, once it is exhausted the ordering reached so far is returned.
+     *
+     * @param startingOrder ordering at the start of stage
+     * @param moves moves of stage
+     * @param budget time limit and cancellation token
+     * @return improved ordering
+     */
+    private MethodOrder applyMoves(MethodOrder startingOrder, List<CandidateMove> moves,
+                                   ReorderingBudget budget) {
+        MethodOrder result = startingOrder;
+        if (bestImprovement) {
+            boolean improved = true;
+            while (improved && !budget.isExhausted()) {
+                final MethodOrder roundOrder = result;
+                result = applyBestMoves(result, moves, budget);
+                improved = result != roundOrder;
+            }
+        }
+        else {
+            for (int index = 0; index < moves.size() && !budget.isExhausted(); ++index) {
+                final MethodOrder candidate = moves.get(index).operator.apply(result);
+                if (candidate != result) {
+                    result = getBestOrdering(result, candidate);
+                }
+            }
+        }
+        return result;
+    }
+
+    private MethodOrder applyBestMoves(MethodOrder startingOrder, List<CandidateMove> moves,
+                                       ReorderingBudget budget) {
+        final float startingPenalty = calculator.getPenalty(startingOrder, screenLinesCount);
+        final List<Float> penalties = scoreMoves(startingOrder, startingPenalty, moves, budget);
+        final List<Integer> improving = IntStream.range(0, moves.size())
+            .filter(move -> penalties.get(move) < startingPenalty)
+            .boxed()
+            .sorted(Comparator.comparing(penalties::get))
+            .collect(Collectors.toList());
+        final Set<Method> touched = new HashSet<>();
+        MethodOrder result = startingOrder;
+        float resultPenalty = startingPenalty;
+        for (final int index : improving) {
+            final CandidateMove move = moves.get(index);
+            if (Collections.disjoint(touched, move.methods) && !budget.isExhausted()) {
+                final MethodOrder candidate = move.operator.apply(result);
+                final float penalty =
+                    calculator.getPenalty(candidate, screenLinesCount, resultPenalty);
+                if (penalty < resultPenalty) {
+                    result = candidate;
+                    resultPenalty = penalty;
+                    touched.addAll(move.methods);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Scores moves built from the same ordering on executor. Moves which start after budget
+     * is exhausted are not built and get penalty of ordering.
+     *
+     * @param order ordering
+     * @param penalty penalty of ordering
+     * @param moves moves
+     * @param budget time limit and cancellation token
+     * @return penalty after each move, values above penalty of ordering are not exact
+     */
+    private List<Float> scoreMoves(MethodOrder order, float penalty, List<CandidateMove> moves,
+                                   ReorderingBudget budget) {
+        final List<Callable<Float>> tasks = moves.stream()
+            .map(move -> (Callable<Float>) () -> scoreMove(order, penalty, move, budget))
+            .collect(Collectors.toList());
+        final List<Float> result = new ArrayList<>(moves.size());
+        try {
+            for (final Future<Float> future : executor.invokeAll(tasks)) {
+                result.add(future.get());
+            }
+        }
+        catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+            result.clear();
+            moves.forEach(move -> result.add(penalty));
+        }
+        catch (ExecutionException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return result;
+    }
 
-        MethodOrder currentMethodOrder = startingMethodOrder;
-        for (final List<Method> methodsGroup : groups) {
-            final Method lastMethod = methodsGroup.stream()
-                .sorted(new MethodIndexComparator(currentMethodOrder).reversed())
-                .findFirst().get();
-            final List<Method> nonLastMethodsInGroup = new ArrayList<>(methodsGroup);
-            nonLastMethodsInGroup.remove(lastMethod);
-            final List<Method> optimizedOrdering = new ArrayList<>(currentMethodOrder.getMethods());
-            optimizedOrdering.removeAll(nonLastMethodsInGroup);
-            optimizedOrdering.addAll(currentMethodOrder.getMethodIndex(lastMethod),
-                nonLastMethodsInGroup);
-            currentMethodOrder =
-                getBestOrdering(currentMethodOrder, currentMethodOrder.reorder(optimizedOrdering));
+    private float scoreMove(MethodOrder order, float penalty, CandidateMove move,
+                            ReorderingBudget budget) {
+        final float result;
+        if (budget.isExhausted()) {
+            result = penalty;
+        }
+        else {
+            result = calculator.getPenalty(move.operator.apply(order), screenLinesCount, penalty);
         }
-        return currentMethodOrder;
+        return result;
     }
 
     private MethodOrder getBestOrdering(MethodOrder lhs, MethodOrder rhs) {
         final MethodOrder result;
-        if (calculator.getPenalty(lhs, screenLinesCount)
-            < calculator.getPenalty(rhs, screenLinesCount)) {
+        final float lhsPenalty = calculator.getPenalty(lhs, screenLinesCount);
+        if (lhsPenalty < calculator.getPenalty(rhs, screenLinesCount, lhsPenalty)) {
             result = lhs;
         }
         else {
@@ -178,47 +453,58 @@ public class TopologicalMethodReorderer implements MethodReorderer {
         return result;
     }
 
-    private static Method getFirstMethod(MethodOrder order) {
-        return Stream.<Supplier<Optional<Method>>>of(
-            () -> {
-                return order.getMethods().stream()
-                .filter(Method::isCtor)
-                .sorted((lhs, rhs) -> Integer.compare(lhs.getArgCount(), rhs.getArgCount()))
-                .findFirst();
-            },
-            () -> {
-                return order.getMethods().stream()
-                .sorted((lhs, rhs) -> {
-                    final int lhsDeps = order.getMethodDependenciesInAppearanceOrder(lhs).size();
-                    final int rhsDeps = order.getMethodDependenciesInAppearanceOrder(rhs).size();
-                    return Integer.compare(rhsDeps, lhsDeps);
-                })
-                .findFirst();
-            },
-            () -> Optional.of(order.getMethods().get(0)))
-            .map(Supplier::get)
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .findFirst().get();
+    /**
+     * Candidates for root of breadth first ordering from the best one: constructors with
+     * the least arguments first, then methods with the most dependencies.
+     *
+     * @param order ordering
+     * @return candidates
+     */
+    private static List<Method> getRootCandidates(MethodOrder order) {
+        final List<Method> ctors = order.getMethods().stream()
+            .filter(Method::isCtor)
+            .sorted((lhs, rhs) -> Integer.compare(lhs.getArgCount(), rhs.getArgCount()))
+            .collect(Collectors.toList());
+        final List<Method> result = new ArrayList<>(ctors);
+        order.getMethods().stream()
+            .filter(method -> !method.isCtor())
+            .sorted((lhs, rhs) -> {
+                final int lhsDeps = order.getMethodDependenciesInAppearanceOrder(lhs).size();
+                final int rhsDeps = order.getMethodDependenciesInAppearanceOrder(rhs).size();
+                return Integer.compare(rhsDeps, lhsDeps);
+            })
+            .forEach(result::add);
+        return result;
     }
 
+    /**
+     * Orders methods breadth first from start method. Unreachable methods are visited from the
+     * first of them in the given ordering. Takes linear time of call graph size.
+     *
+     * @param methodOrder ordering
+     * @param startMethod method to start from
+     * @return methods in breadth first order
+     */
     private static List<Method> breadthFirstOrder(MethodOrder methodOrder, Method startMethod) {
+        final List<Method> methods = methodOrder.getMethods();
         final Queue<Method> queue = new LinkedList<>();
+        final Set<Method> visited = new HashSet<>();
         final List<Method> result = new ArrayList<>();
+        int unvisited = 0;
         queue.add(startMethod);
-        while (result.size() < methodOrder.getMethods().size()) {
+        while (result.size() < methods.size()) {
             if (queue.isEmpty()) {
-                methodOrder.getMethods().stream()
-                    .filter(method -> !result.contains(method))
-                    .findFirst()
-                    .ifPresent(queue::add);
+                while (visited.contains(methods.get(unvisited))) {
+                    ++unvisited;
+                }
+                queue.add(methods.get(unvisited));
             }
             else {
                 final Method head = queue.remove();
-                if (!result.contains(head)) {
+                if (visited.add(head)) {
                     result.add(head);
                     methodOrder.getMethodDependenciesInAppearanceOrder(head).stream()
-                        .filter(callee -> !result.contains(callee))
+                        .filter(callee -> !visited.contains(callee))
                         .forEach(queue::add);
                 }
             }
@@ -226,6 +512,21 @@ public class TopologicalMethodReorderer implements MethodReorderer {
         return result;
     }
 
+    /**
+     * Candidate reordering of some methods which is built from the ordering it is applied to.
+     */
+    private static final class CandidateMove {
+
+        private final Collection<Method> methods;
+
+        private final UnaryOperator<MethodOrder> operator;
+
+        private CandidateMove(Collection<Method> methods, UnaryOperator<MethodOrder> operator) {
+            this.methods = methods;
+            this.operator = operator;
+        }
+    }
+
     private static final class MethodIndexComparator implements Comparator<Method> {
 
         private final MethodOrder order;
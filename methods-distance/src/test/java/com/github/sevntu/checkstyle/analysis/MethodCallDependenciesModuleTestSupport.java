@@ -23,6 +23,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -124,6 +125,12 @@ public class MethodCallDependenciesModuleTestSupport extends BaseCheckTestSuppor
         return new MethodOrder(withDefaultConfig(fileName));
     }
 
+    protected MethodOrder withDefaultConfigOrdering(final File file) throws Exception {
+        final String filePath = file.toURI().getPath();
+        verify(createCheckConfig(MethodCallDependencyCheckstyleModule.class), filePath);
+        return new MethodOrder(collector.getForFile(filePath));
+    }
+
     private static final class DependencyInformationCollector
             implements DependencyInformationConsumer {
 
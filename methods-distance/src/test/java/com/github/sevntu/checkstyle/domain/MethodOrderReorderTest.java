@@ -21,11 +21,18 @@ package com.github.sevntu.checkstyle.domain;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.junit.Test;
 
 import com.github.sevntu.checkstyle.analysis.MethodCallDependenciesModuleTestSupport;
 import com.github.sevntu.checkstyle.ordering.Method;
 import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
 
 public class MethodOrderReorderTest extends MethodCallDependenciesModuleTestSupport {
 
@@ -49,6 +56,76 @@ public class MethodOrderReorderTest extends MethodCallDependenciesModuleTestSupp
         compare(second, firstLikeSecond, screenLinesCount);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testReorderWithDuplicateMethod() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final List<Method> methods = new ArrayList<>(order.getMethods());
+        methods.set(1, methods.get(0));
+        order.reorder(methods);
+    }
+
+    @Test
+    public void testReorderOfAnotherClassOrdering() throws Exception {
+        final MethodOrder first = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final MethodOrder second = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final MethodOrder moved = second.moveMethodBy(second.getMethodByInitialIndex(0), 4);
+        assertEquals(moved.getMethods(), first.reorder(moved.getMethods()).getMethods());
+    }
+
+    @Test
+    public void testReorderWindow() throws Exception {
+        final int screenLinesCount = 5;
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final List<Method> methods = new ArrayList<>(order.getMethods());
+        Collections.reverse(methods.subList(2, 7));
+        final MethodOrder window = order.reorderWindow(2, methods.subList(2, 7));
+        final MethodOrder whole = order.reorder(methods);
+        assertEquals(whole.getMethods(), window.getMethods());
+        assertEquals(whole.getOrderingHash(), window.getOrderingHash());
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        assertEquals(calculator.getPenalty(whole, screenLinesCount)
+            - calculator.getPenalty(order, screenLinesCount),
+            calculator.getRangePenalty(window, 2, 6, screenLinesCount)
+                - calculator.getRangePenalty(order, 2, 6, screenLinesCount), 1e-3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReorderWindowWithOuterMethod() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        order.reorderWindow(2, order.getMethods().subList(1, 4));
+    }
+
+    @Test
+    public void testRestrict() throws Exception {
+        final int screenLinesCount = 5;
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final List<Method> methods = new ArrayList<>(order.getMethods());
+        Collections.reverse(methods);
+        final MethodOrder reversed = order.reorder(methods);
+        final MethodOrder whole = order.restrict(methods);
+        assertEquals(reversed.getMethods(), whole.getMethods());
+        assertEquals(calculator.getPenalty(reversed, screenLinesCount),
+            calculator.getPenalty(whole, screenLinesCount), 1e-3);
+        final List<Method> subset = methods.subList(3, 12);
+        final MethodOrder restricted = order.restrict(subset);
+        assertEquals(subset, restricted.getMethods());
+        for (int index = 0; index < subset.size(); ++index) {
+            final List<Method> dependencies =
+                order.getMethodDependenciesInAppearanceOrder(subset.get(index)).stream()
+                    .filter(subset::contains)
+                    .collect(Collectors.toList());
+            assertEquals(dependencies, restricted.getMethodDependenciesInAppearanceOrder(
+                restricted.getMethods().get(index)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRestrictWithDuplicateMethod() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        order.restrict(Arrays.asList(order.getMethods().get(0), order.getMethods().get(0)));
+    }
+
     private static void compare(final MethodOrder expected, final MethodOrder actual,
             final int screenLinesCount) {
         assertEquals(expected.getAccessorsSplitCases(), actual.getAccessorsSplitCases());
@@ -0,0 +1,674 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.sevntu.checkstyle.analysis.MethodCallDependenciesModuleTestSupport;
+import com.github.sevntu.checkstyle.ordering.Method;
+import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
+import com.github.sevntu.checkstyle.reordering.BranchAndBoundMethodReorderer;
+import com.github.sevntu.checkstyle.reordering.CancellationToken;
+import com.github.sevntu.checkstyle.reordering.DecompositionMethodReorderer;
+import com.github.sevntu.checkstyle.reordering.DominatorMethodReorderer;
+import com.github.sevntu.checkstyle.reordering.GeneticMethodReorderer;
+import com.github.sevntu.checkstyle.reordering.MethodReorderer;
+import com.github.sevntu.checkstyle.reordering.MultilevelMethodReorderer;
+import com.github.sevntu.checkstyle.reordering.PenaltyBound;
+import com.github.sevntu.checkstyle.reordering.PortfolioMethodReorderer;
+import com.github.sevntu.checkstyle.reordering.ReorderingBudget;
+import com.github.sevntu.checkstyle.reordering.ReorderingResult;
+import com.github.sevntu.checkstyle.reordering.SearchProgress;
+import com.github.sevntu.checkstyle.reordering.SimulatedAnnealingMethodReorderer;
+import com.github.sevntu.checkstyle.reordering.SlidingWindowMethodReorderer;
+import com.github.sevntu.checkstyle.reordering.SpectralMethodReorderer;
+import com.github.sevntu.checkstyle.reordering.StronglyConnectedComponentsMethodReorderer;
+import com.github.sevntu.checkstyle.reordering.TabuSearchMethodReorderer;
+import com.github.sevntu.checkstyle.reordering.TopologicalMethodReorderer;
+
+public class MethodReordererTest extends MethodCallDependenciesModuleTestSupport {
+
+    private static final int SCREEN_LINES_COUNT = 50;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testSimulatedAnnealing() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final SimulatedAnnealingMethodReorderer reorderer =
+            new SimulatedAnnealingMethodReorderer();
+        reorderer.setMaxEvaluations(2000);
+        final MethodOrder reordered = assertNotWorseThanTopological(reorderer, order);
+        assertEquals(reordered.getMethods(), reorderer.reorder(order).getMethods());
+        final SimulatedAnnealingMethodReorderer seeded = new SimulatedAnnealingMethodReorderer();
+        seeded.setMaxEvaluations(2000);
+        assertEquals(reordered.getMethods(), seeded.reorder(order,
+            new ReorderingBudget(TimeUnit.HOURS.toMillis(1))).getMethods());
+    }
+
+    @Test
+    public void testTabuSearch() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final TabuSearchMethodReorderer reorderer = new TabuSearchMethodReorderer();
+        reorderer.setMaxEvaluations(2000);
+        reorderer.setTimeLimitMillis(Long.MAX_VALUE / 2);
+        final MethodOrder reordered = assertNotWorseThanTopological(reorderer, order);
+        final SearchProgress progress = reorderer.getLastProgress();
+        assertEquals(2000, progress.getTotalEvaluations());
+        assertEquals(new PenaltyCalculator().getPenalty(reordered, SCREEN_LINES_COUNT),
+            progress.getBestPenalty(), 1e-3);
+        for (int improvement = 1; improvement < progress.getImprovementsCount(); ++improvement) {
+            assertTrue(progress.getBestPenalty(improvement)
+                < progress.getBestPenalty(improvement - 1));
+        }
+    }
+
+    @Test
+    public void testTabuSearchSmallClass() throws Exception {
+        final MethodOrder order =
+            withDefaultConfigOrdering("InputMutuallyRecursiveMethods.java");
+        final TabuSearchMethodReorderer reorderer = new TabuSearchMethodReorderer();
+        reorderer.setMaxBlockLength(10);
+        reorderer.setMaxEvaluations(100);
+        assertNotWorseThanTopological(reorderer, order);
+        assertEquals(100, reorderer.getLastProgress().getTotalEvaluations());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTabuSearchInvalidBlockLength() {
+        new TabuSearchMethodReorderer().setMaxBlockLength(0);
+    }
+
+    @Test
+    public void testBranchAndBound() throws Exception {
+        final BranchAndBoundMethodReorderer reorderer = new BranchAndBoundMethodReorderer();
+        reorderer.setTimeLimitMillis(Long.MAX_VALUE / 2);
+        for (final String input : Arrays.asList("InputPenaltyCalculator.java",
+            "InputMutuallyRecursiveMethods.java", "InputPrivateHelpers.java")) {
+            final MethodOrder order = withDefaultConfigOrdering(input);
+            final MethodOrder reordered = assertNotWorseThanTopological(reorderer, order);
+            assertTrue(input, reorderer.isLastResultOptimal());
+            assertEquals(input, getMinimalPenalty(order, 0),
+                new PenaltyCalculator().getPenalty(reordered, SCREEN_LINES_COUNT), 1e-3);
+        }
+    }
+
+    @Test
+    public void testBranchAndBoundFallback() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputPenaltyCalculator.java");
+        final MethodOrder topological = new TopologicalMethodReorderer().reorder(order);
+        final BranchAndBoundMethodReorderer reorderer = new BranchAndBoundMethodReorderer();
+        reorderer.setMaxNodes(1);
+        assertEquals(topological.getMethods(), reorderer.reorder(order).getMethods());
+        assertFalse(reorderer.isLastResultOptimal());
+        reorderer.setMaxNodes(BranchAndBoundMethodReorderer.DEFAULT_MAX_NODES);
+        reorderer.setMaxMethodsCount(1);
+        assertEquals(topological.getMethods(), reorderer.reorder(order).getMethods());
+        assertFalse(reorderer.isLastResultOptimal());
+    }
+
+    @Test
+    public void testBranchAndBoundAborted() throws Exception {
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        final MethodOrder order = withDefaultConfigOrdering("InputPrivateHelpers.java");
+        final BranchAndBoundMethodReorderer reorderer = new BranchAndBoundMethodReorderer();
+        reorderer.setMaxNodes(10);
+        final MethodOrder reordered = reorderer.reorder(order);
+        assertFalse(reorderer.isLastResultOptimal());
+        assertTrue(calculator.getPenalty(reordered, SCREEN_LINES_COUNT)
+            < calculator.getPenalty(new TopologicalMethodReorderer().reorder(order),
+                SCREEN_LINES_COUNT));
+    }
+
+    @Test
+    public void testGenetic() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final GeneticMethodReorderer reorderer = new GeneticMethodReorderer();
+        reorderer.setPopulationSize(20);
+        reorderer.setGenerationsCount(20);
+        reorderer.setParallelism(4);
+        final MethodOrder reordered = assertNotWorseThanTopological(reorderer, order);
+        reorderer.setParallelism(1);
+        assertEquals(reordered.getMethods(), reorderer.reorder(order).getMethods());
+    }
+
+    @Test
+    public void testMultiStartTopological() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final TopologicalMethodReorderer reorderer = new TopologicalMethodReorderer();
+        reorderer.setRootsCount(Integer.MAX_VALUE);
+        final MethodOrder reordered = assertNotWorseThanTopological(reorderer, order);
+        reorderer.setRootsCount(3);
+        final MethodOrder reorderedFromThreeRoots = reorderer.reorder(order);
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        assertTrue(calculator.getPenalty(reordered, SCREEN_LINES_COUNT)
+            <= calculator.getPenalty(reorderedFromThreeRoots, SCREEN_LINES_COUNT));
+    }
+
+    @Test
+    public void testMultiStartTopologicalOnExecutor() throws Exception {
+        final ExecutorService twoThreads = Executors.newFixedThreadPool(2);
+        try {
+            final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+            final TopologicalMethodReorderer reorderer = new TopologicalMethodReorderer();
+            reorderer.setRootsCount(3);
+            final MethodOrder reordered = reorderer.reorder(order);
+            reorderer.setExecutor(twoThreads);
+            assertEquals(reordered.getMethods(), reorderer.reorder(order).getMethods());
+        }
+        finally {
+            twoThreads.shutdown();
+        }
+    }
+
+    @Test
+    public void testTopologicalLargeClassWithinBudget() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering(writeGeneratedClass(3000));
+        final long start = System.nanoTime();
+        final MethodOrder reordered =
+            new TopologicalMethodReorderer().reorder(order, new ReorderingBudget(20));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertPermutation(order, reordered);
+    }
+
+    @Test
+    public void testBestImprovementTopological() throws Exception {
+        final ExecutorService singleThread = Executors.newSingleThreadExecutor();
+        final ExecutorService fourThreads = Executors.newFixedThreadPool(4);
+        try {
+            for (final String input : Arrays.asList("InputOrderingReordering1.java",
+                "InputDependenciesOverloadSplit1.java", "InputPenaltyCalculator.java")) {
+                final MethodOrder order = withDefaultConfigOrdering(input);
+                final TopologicalMethodReorderer reorderer = new TopologicalMethodReorderer();
+                reorderer.setBestImprovement(true);
+                final MethodOrder reordered = reorderer.reorder(order);
+                assertPermutation(order, reordered);
+                reorderer.setExecutor(singleThread);
+                assertEquals(input, reordered.getMethods(), reorderer.reorder(order).getMethods());
+                reorderer.setExecutor(fourThreads);
+                assertEquals(input, reordered.getMethods(), reorderer.reorder(order).getMethods());
+            }
+        }
+        finally {
+            singleThread.shutdown();
+            fourThreads.shutdown();
+        }
+    }
+
+    @Test
+    public void testPortfolio() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final PortfolioMethodReorderer reorderer = new PortfolioMethodReorderer();
+        reorderer.setTimeLimitMillis(Long.MAX_VALUE / 2);
+        assertNotWorseThanTopological(reorderer, order);
+        assertTrue(reorderer.getStrategies().containsKey(reorderer.getLastStrategyName()));
+        final PortfolioMethodReorderer timedOut = new PortfolioMethodReorderer(
+            Collections.singletonMap("blocking", methodOrder -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    LockSupport.park();
+                }
+                throw new IllegalStateException("interrupted");
+            }));
+        timedOut.setTimeLimitMillis(0);
+        timedOut.reorder(order);
+        assertEquals(PortfolioMethodReorderer.INITIAL_ORDERING_NAME,
+            timedOut.getLastStrategyName());
+    }
+
+    @Test
+    public void testPortfolioWithStuckStrategy() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final AtomicBoolean released = new AtomicBoolean();
+        final PortfolioMethodReorderer reorderer = new PortfolioMethodReorderer(
+            Collections.singletonMap("stuck", methodOrder -> {
+                while (!released.get()) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+                return methodOrder;
+            }));
+        reorderer.setTimeLimitMillis(10);
+        try {
+            final long start = System.nanoTime();
+            assertEquals(order.getMethods(), reorderer.reorder(order).getMethods());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+            assertEquals(PortfolioMethodReorderer.INITIAL_ORDERING_NAME,
+                reorderer.getLastStrategyName());
+        }
+        finally {
+            released.set(true);
+        }
+    }
+
+    @Test
+    public void testBranchAndBoundWithSharedBound() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputPenaltyCalculator.java");
+        final BranchAndBoundMethodReorderer reorderer = new BranchAndBoundMethodReorderer();
+        final PenaltyBound unreachable = new PenaltyBound(0);
+        final MethodOrder pruned = reorderer.reorder(order,
+            ReorderingBudget.unlimited().withPenaltyBound(unreachable));
+        assertEquals(new TopologicalMethodReorderer().reorder(order).getMethods(),
+            pruned.getMethods());
+        assertFalse(reorderer.isLastResultOptimal());
+        final PenaltyBound bound = new PenaltyBound(Float.POSITIVE_INFINITY);
+        final MethodOrder reordered =
+            reorderer.reorder(order, ReorderingBudget.unlimited().withPenaltyBound(bound));
+        assertTrue(reorderer.isLastResultOptimal());
+        assertEquals(new PenaltyCalculator().getPenalty(reordered, SCREEN_LINES_COUNT),
+            bound.get(), 1e-3);
+    }
+
+    @Test
+    public void testTabuSearchPublishesBound() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        final PenaltyBound bound = new PenaltyBound(Float.POSITIVE_INFINITY);
+        final TabuSearchMethodReorderer reorderer = new TabuSearchMethodReorderer();
+        reorderer.setMaxEvaluations(2000);
+        reorderer.setTimeLimitMillis(Long.MAX_VALUE / 2);
+        final MethodOrder reordered =
+            reorderer.reorder(order, ReorderingBudget.unlimited().withPenaltyBound(bound));
+        assertEquals(calculator.getPenalty(reordered, SCREEN_LINES_COUNT), bound.get(), 1e-3);
+    }
+
+    @Test
+    public void testPortfolioWithFailedStrategy() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final Map<String, MethodReorderer> strategies = new LinkedHashMap<>();
+        strategies.put("failing", methodOrder -> {
+            throw new IllegalStateException("failure");
+        });
+        strategies.put("reversing", methodOrder -> {
+            final List<Method> methods = new ArrayList<>(methodOrder.getMethods());
+            Collections.reverse(methods);
+            return methodOrder.reorder(methods);
+        });
+        strategies.put("topological", new TopologicalMethodReorderer());
+        final PortfolioMethodReorderer reorderer = new PortfolioMethodReorderer(strategies);
+        final MethodOrder reordered = reorderer.reorder(order);
+        assertEquals(Collections.singletonList("failing"),
+            reorderer.getLastFailedStrategyNames());
+        assertEquals("topological", reorderer.getLastStrategyName());
+        assertEquals(new TopologicalMethodReorderer().reorder(order).getMethods(),
+            reordered.getMethods());
+        strategies.remove("topological");
+        final PortfolioMethodReorderer worse = new PortfolioMethodReorderer(strategies);
+        assertEquals(order.getMethods(), worse.reorder(order).getMethods());
+        assertEquals(PortfolioMethodReorderer.INITIAL_ORDERING_NAME, worse.getLastStrategyName());
+    }
+
+    @Test
+    public void testCancelledBudget() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final CancellationToken token = new CancellationToken();
+        final ReorderingBudget budget = new ReorderingBudget(Long.MAX_VALUE,
+            new CancellationToken(token), (bestPenalty, evaluations, rate) -> {
+                throw new AssertionError("no progress expected");
+            });
+        token.cancel();
+        final TabuSearchMethodReorderer reorderer = new TabuSearchMethodReorderer();
+        final MethodOrder reordered = reorderer.reorder(order, budget);
+        assertPermutation(order, reordered);
+        assertEquals(1, reorderer.getLastProgress().getTotalEvaluations());
+    }
+
+    @Test
+    public void testBudgetProgress() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final CancellationToken token = new CancellationToken();
+        final List<Float> penalties = new ArrayList<>();
+        final List<Long> evaluationsCounts = new ArrayList<>();
+        final ReorderingBudget budget = new ReorderingBudget(Long.MAX_VALUE, token,
+            (bestPenalty, evaluations, rate) -> {
+                penalties.add(bestPenalty);
+                evaluationsCounts.add(evaluations);
+                assertTrue(rate > 0);
+                if (penalties.size() == 3) {
+                    token.cancel();
+                }
+            });
+        final GeneticMethodReorderer reorderer = new GeneticMethodReorderer();
+        reorderer.setPopulationSize(10);
+        final MethodOrder reordered = reorderer.reorder(order, budget);
+        assertEquals(Arrays.asList(10L, 20L, 30L), evaluationsCounts);
+        assertTrue(penalties.get(2) <= penalties.get(0));
+        assertEquals(penalties.get(2),
+            new PenaltyCalculator().getPenalty(reordered, SCREEN_LINES_COUNT), 1e-3);
+    }
+
+    @Test
+    public void testReorderingResult() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        for (final MethodReorderer reorderer : Arrays.asList(new TopologicalMethodReorderer(),
+            new StronglyConnectedComponentsMethodReorderer(), new DominatorMethodReorderer())) {
+            final ReorderingResult result = reorderer.reorder(order,
+                ReorderingBudget.unlimited(), calculator, SCREEN_LINES_COUNT);
+            assertEquals(reorderer.reorder(order).getMethods(),
+                result.getMethodOrder().getMethods());
+            assertEquals(calculator.getPenalty(result.getMethodOrder(), SCREEN_LINES_COUNT),
+                result.getPenalty(), 1e-3);
+            assertEquals(calculator.getPenaltyLowerBound(order, 0, SCREEN_LINES_COUNT),
+                result.getLowerBound(), 1e-3);
+            assertTrue(result.getGap() >= 0 && result.getGap() < 1);
+        }
+    }
+
+    @Test
+    public void testDecomposition() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final DecompositionMethodReorderer reorderer = new DecompositionMethodReorderer();
+        final MethodOrder reordered = assertNotWorseThanTopological(reorderer, order);
+        assertEquals(reordered.getMethods(), reorderer.reorder(order).getMethods());
+        final MethodOrder independent = withDefaultConfigOrdering("InputIndependentMethods.java");
+        assertNotWorseThanTopological(reorderer, independent);
+        for (final String input : Arrays.asList("InputOrderingReordering1.java",
+            "InputPrivateHelpers.java", "InputIndependentMethods.java")) {
+            final MethodOrder component = withDefaultConfigOrdering(input);
+            final MethodOrder decomposed = reorderer.reorder(component);
+            // initial ordering is kept when components placed as blocks are worse
+            if (!decomposed.getMethods().equals(component.getMethods())) {
+                assertContiguous(input, decomposed,
+                    method -> getWeaklyConnectedComponent(decomposed, method));
+            }
+        }
+        assertFalse(reordered.getMethods().equals(order.getMethods()));
+    }
+
+    @Test
+    public void testDecompositionReordersComponents() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        final DecompositionMethodReorderer reorderer =
+            new DecompositionMethodReorderer(component -> {
+                sizes.add(component.getMethods().size());
+                return new TopologicalMethodReorderer().reorder(component);
+            });
+        assertPermutation(order, reorderer.reorder(order));
+        assertTrue(sizes.size() > 1);
+        assertTrue(sizes.stream().allMatch(size -> size < order.getMethods().size()));
+    }
+
+    @Test
+    public void testSlidingWindow() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final SlidingWindowMethodReorderer reorderer = new SlidingWindowMethodReorderer();
+        final MethodOrder reordered = assertNotWorseThanTopological(reorderer, order);
+        assertEquals(reordered.getMethods(), reorderer.reorder(order).getMethods());
+        final MethodOrder small = withDefaultConfigOrdering("InputPenaltyCalculator.java");
+        reorderer.setWindowSize(small.getMethods().size());
+        assertEquals(getMinimalPenalty(small, 0), new PenaltyCalculator().getPenalty(
+            assertNotWorseThanTopological(reorderer, small), SCREEN_LINES_COUNT), 1e-3);
+    }
+
+    @Test
+    public void testStronglyConnectedComponents() throws Exception {
+        final MethodReorderer reorderer = new StronglyConnectedComponentsMethodReorderer();
+        for (final String input : Arrays.asList("InputOrderingReordering1.java",
+            "InputMutuallyRecursiveMethods.java", "InputIndependentMethods.java")) {
+            final MethodOrder order = withDefaultConfigOrdering(input);
+            final MethodOrder reordered = reorderer.reorder(order);
+            assertPermutation(order, reordered);
+            assertContiguous(input, reordered,
+                method -> getStronglyConnectedComponent(reordered, method));
+            for (final Method caller : reordered.getMethods()) {
+                for (final Method callee
+                    : reordered.getMethodDependenciesInAppearanceOrder(caller)) {
+                    if (reordered.getMethodIndex(callee) < reordered.getMethodIndex(caller)) {
+                        assertTrue(input, isReachable(reordered, callee, caller));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDominator() throws Exception {
+        final MethodReorderer reorderer = new DominatorMethodReorderer();
+        for (final String input : Arrays.asList("InputOrderingReordering1.java",
+            "InputMutuallyRecursiveMethods.java", "InputPrivateHelpers.java")) {
+            final MethodOrder order = withDefaultConfigOrdering(input);
+            final MethodOrder reordered = reorderer.reorder(order);
+            assertPermutation(order, reordered);
+            for (final Method helper : reordered.getMethods()) {
+                final List<Method> callers = reordered.getMethodDependants(helper);
+                if (helper.isPrivate() && !helper.isCtor() && callers.size() == 1
+                    && !callers.contains(helper)) {
+                    assertTrue(input, reordered.getMethodsIndexDifference(callers.get(0),
+                        helper) > 0);
+                }
+            }
+        }
+        final MethodOrder helpers =
+            reorderer.reorder(withDefaultConfigOrdering("InputPrivateHelpers.java"));
+        assertEquals(Arrays.asList("InputPrivateHelpers", "init", "process", "validate", "check",
+            "report", "format", "store"), helpers.getMethods().stream().map(Method::getName)
+            .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testMultilevel() throws Exception {
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        final MultilevelMethodReorderer reorderer = new MultilevelMethodReorderer();
+        for (final String input : Arrays.asList("InputOrderingReordering1.java",
+            "InputPrivateHelpers.java", "InputIndependentMethods.java")) {
+            final MethodOrder order = withDefaultConfigOrdering(input);
+            final MethodOrder reordered = reorderer.reorder(order);
+            assertPermutation(order, reordered);
+            assertEquals(reordered.getMethods(), reorderer.reorder(order).getMethods());
+            assertTrue(calculator.getPenalty(reordered, SCREEN_LINES_COUNT)
+                <= calculator.getPenalty(order, SCREEN_LINES_COUNT));
+        }
+    }
+
+    @Test
+    public void testMultilevelLargeClass() throws Exception {
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        final MethodOrder order = withDefaultConfigOrdering(writeGeneratedClass(3000));
+        final MethodOrder reordered = new MultilevelMethodReorderer().reorder(order);
+        assertPermutation(order, reordered);
+        assertTrue(calculator.getPenalty(reordered, SCREEN_LINES_COUNT)
+            < calculator.getPenalty(order, SCREEN_LINES_COUNT));
+    }
+
+    @Test
+    public void testMultilevelBringsFarClustersTogether() throws Exception {
+        final StringBuilder source = new StringBuilder("public class InputFarApart {\n")
+            .append("    public void first() {\n        last();\n    }\n");
+        for (int method = 0; method < 40; ++method) {
+            source.append("    public void method").append(method).append("() {\n\n\n    }\n");
+        }
+        source.append("    public void last() { }\n}\n");
+        final File file = temporaryFolder.newFile("InputFarApart.java");
+        Files.write(file.toPath(), source.toString().getBytes(StandardCharsets.UTF_8));
+        final MultilevelMethodReorderer reorderer = new MultilevelMethodReorderer();
+        reorderer.setRefinementRadius(0);
+        final List<String> names = reorderer.reorder(withDefaultConfigOrdering(file))
+            .getMethods().stream().map(Method::getName).collect(Collectors.toList());
+        assertEquals(1, Math.abs(names.indexOf("last") - names.indexOf("first")));
+    }
+
+    @Test
+    public void testSpectral() throws Exception {
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final SpectralMethodReorderer reorderer = new SpectralMethodReorderer();
+        final MethodOrder seed = reorderer.reorder(order);
+        assertPermutation(order, seed);
+        assertEquals(seed.getMethods(), reorderer.reorder(order).getMethods());
+        assertTrue(reorderer.isLastResultConverged());
+        final MethodOrder improved = new SlidingWindowMethodReorderer(reorderer).reorder(order);
+        assertTrue(calculator.getPenalty(improved, SCREEN_LINES_COUNT)
+            <= calculator.getPenalty(seed, SCREEN_LINES_COUNT));
+    }
+
+    @Test
+    public void testSpectralLargeClass() throws Exception {
+        final MethodOrder order = withDefaultConfigOrdering(writeGeneratedClass(600));
+        final SpectralMethodReorderer reorderer = new SpectralMethodReorderer();
+        final MethodOrder reordered = reorderer.reorder(order);
+        assertTrue(reorderer.isLastResultConverged());
+        assertPermutation(order, reordered);
+        reorderer.setMaxIterations(1);
+        reorderer.reorder(order);
+        assertFalse(reorderer.isLastResultConverged());
+    }
+
+    /**
+     * Writes class of methods which call two methods each: one declared shortly after the
+     * caller and one chosen at random.
+     *
+     * @param methodsCount number of methods
+     * @return source file
+     * @throws IOException if file can not be written
+     */
+    private File writeGeneratedClass(int methodsCount) throws IOException {
+        final Random random = new Random(1);
+        final StringBuilder source = new StringBuilder("public class InputGenerated {\n");
+        for (int method = 0; method < methodsCount; ++method) {
+            source.append("    public void method").append(method).append("() {\n");
+            final int near = method + 1 + random.nextInt(10);
+            if (near < methodsCount) {
+                source.append("        method").append(near).append("();\n");
+            }
+            source.append("        method").append(random.nextInt(methodsCount))
+                .append("();\n    }\n");
+        }
+        final File result = temporaryFolder.newFile("InputGenerated.java");
+        Files.write(result.toPath(), source.append("}\n").toString()
+            .getBytes(StandardCharsets.UTF_8));
+        return result;
+    }
+
+    private static boolean isReachable(MethodOrder order, Method from, Method to) {
+        final Set<Method> visited = new HashSet<>();
+        final Deque<Method> queue = new ArrayDeque<>();
+        queue.add(from);
+        while (!queue.isEmpty() && !visited.contains(to)) {
+            for (final Method callee
+                : order.getMethodDependenciesInAppearanceOrder(queue.remove())) {
+                if (visited.add(callee)) {
+                    queue.add(callee);
+                }
+            }
+        }
+        return visited.contains(to);
+    }
+
+    /**
+     * Asserts that methods of each component form a contiguous block.
+     *
+     * @param message assertion message
+     * @param order ordering
+     * @param component function returning component of method
+     */
+    private static void assertContiguous(String message, MethodOrder order,
+                                         Function<Method, Set<Method>> component) {
+        final Set<Set<Method>> passed = new HashSet<>();
+        Set<Method> current = Collections.emptySet();
+        for (final Method method : order.getMethods()) {
+            if (!current.contains(method)) {
+                current = component.apply(method);
+                assertTrue(message, passed.add(current));
+            }
+        }
+    }
+
+    private static Set<Method> getStronglyConnectedComponent(MethodOrder order, Method method) {
+        return order.getMethods().stream()
+            .filter(other -> other.equals(method)
+                || isReachable(order, method, other) && isReachable(order, other, method))
+            .collect(Collectors.toSet());
+    }
+
+    private static Set<Method> getWeaklyConnectedComponent(MethodOrder order, Method method) {
+        final Set<Method> result = new HashSet<>();
+        final Deque<Method> queue = new ArrayDeque<>();
+        result.add(method);
+        queue.add(method);
+        while (!queue.isEmpty()) {
+            final Method current = queue.remove();
+            final List<Method> neighbours =
+                new ArrayList<>(order.getMethodDependenciesInAppearanceOrder(current));
+            neighbours.addAll(order.getMethodDependants(current));
+            for (final Method neighbour : neighbours) {
+                if (result.add(neighbour)) {
+                    queue.add(neighbour);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static float getMinimalPenalty(MethodOrder order, int placedCount) {
+        final List<Method> methods = order.getMethods();
+        float result = new PenaltyCalculator().getPenalty(order, SCREEN_LINES_COUNT);
+        for (int index = placedCount; index < methods.size(); ++index) {
+            result = Math.min(result, getMinimalPenalty(
+                order.moveMethodBy(methods.get(index), placedCount - index), placedCount + 1));
+        }
+        return result;
+    }
+
+    private static void assertPermutation(MethodOrder order, MethodOrder reordered) {
+        assertEquals(order.getMethods().size(), reordered.getMethods().size());
+        assertEquals(new HashSet<>(order.getMethods()), new HashSet<>(reordered.getMethods()));
+    }
+
+    private static MethodOrder assertNotWorseThanTopological(MethodReorderer reorderer,
+                                                             MethodOrder order) {
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        final MethodOrder topological = new TopologicalMethodReorderer().reorder(order);
+        final MethodOrder reordered = reorderer.reorder(order);
+        assertPermutation(order, reordered);
+        assertTrue(calculator.getPenalty(reordered, SCREEN_LINES_COUNT)
+            <= calculator.getPenalty(topological, SCREEN_LINES_COUNT));
+        return reordered;
+    }
+}
@@ -0,0 +1,239 @@
+///////////////////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code and other text files for adherence to a set of rules.
+// Copyright (C) 2001-2024 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+///////////////////////////////////////////////////////////////////////////////////////////////
+
+package com.github.sevntu.checkstyle.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.sevntu.checkstyle.analysis.MethodCallDependenciesModuleTestSupport;
+import com.github.sevntu.checkstyle.ordering.Method;
+import com.github.sevntu.checkstyle.ordering.MethodOrder;
+import com.github.sevntu.checkstyle.ordering.OptimalityGap;
+import com.github.sevntu.checkstyle.ordering.PenaltyBreakdown;
+import com.github.sevntu.checkstyle.ordering.PenaltyCalculator;
+import com.github.sevntu.checkstyle.reordering.BranchAndBoundMethodReorderer;
+
+public class PenaltyCalculatorTest extends MethodCallDependenciesModuleTestSupport {
+
+    private static final float DELTA = 0.001f;
+
+    @Test
+    public void testMoveAndSwapDelta() throws Exception {
+        final int screenLinesCount = 5;
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final float penalty = calculator.getPenalty(order, screenLinesCount);
+        for (final Method method : order.getMethods()) {
+            for (final Method other : order.getMethods()) {
+                final int shift = order.getMethodIndex(other) - order.getMethodIndex(method);
+                final MethodOrder moved = order.moveMethodBy(method, shift);
+                assertEquals(calculator.getPenalty(moved, screenLinesCount) - penalty,
+                    calculator.getMoveDelta(order, method, shift, screenLinesCount), DELTA);
+                final MethodOrder swapped = order.swapMethods(method, other);
+                assertEquals(calculator.getPenalty(swapped, screenLinesCount) - penalty,
+                    calculator.getSwapDelta(order, method, other, screenLinesCount), DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void testPenaltyCache() throws Exception {
+        final int screenLinesCount = 5;
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final Method first = order.getMethods().get(0);
+        final Method last = order.getMethods().get(order.getMethods().size() - 1);
+        final MethodOrder moved = order.moveMethodBy(first, 2);
+        final MethodOrder swapped = order.swapMethods(first, last);
+        assertNotEquals(order.getOrderingHash(), moved.getOrderingHash());
+        assertNotEquals(order.getOrderingHash(), swapped.getOrderingHash());
+        assertEquals(order.getOrderingHash(), moved.moveMethodBy(first, -2).getOrderingHash());
+        assertEquals(order.getOrderingHash(), swapped.swapMethods(first, last).getOrderingHash());
+        assertEquals(swapped.getOrderingHash(),
+            order.reorder(swapped.getMethods()).getOrderingHash());
+
+        final float penalty = calculator.getPenalty(order, screenLinesCount);
+        assertEquals(penalty, calculator.getPenalty(order.reorder(order.getMethods()),
+            screenLinesCount), DELTA);
+        assertEquals(penalty, calculator.getPenalty(moved.moveMethodBy(first, -2),
+            screenLinesCount), DELTA);
+        calculator.getPenalty(moved, screenLinesCount);
+        assertEquals(2, calculator.getPenaltyCacheHits());
+        assertEquals(2, calculator.getPenaltyCacheMisses());
+    }
+
+    @Test
+    public void testPenaltyCacheSeparatesClasses() throws Exception {
+        final int screenLinesCount = 5;
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        for (final String input : Arrays.asList("InputOrderingReordering1.java",
+            "InputPenaltyCalculator.java", "InputOrderingReordering1.java")) {
+            final MethodOrder order = withDefaultConfigOrdering(input);
+            assertEquals(new PenaltyCalculator().getPenalty(order, screenLinesCount),
+                calculator.getPenalty(order, screenLinesCount), DELTA);
+        }
+        assertEquals(0, calculator.getPenaltyCacheHits());
+        assertEquals(3, calculator.getPenaltyCacheMisses());
+    }
+
+    @Test
+    public void testPenaltyCacheClearedOnWeightChange() throws Exception {
+        final int screenLinesCount = 5;
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final float penalty = calculator.getPenalty(order, screenLinesCount);
+        calculator.setDependenciesBetweenDistantMethodsPenalty(0);
+        final PenaltyCalculator expected = new PenaltyCalculator();
+        expected.setDependenciesBetweenDistantMethodsPenalty(0);
+        assertEquals(expected.getPenalty(order, screenLinesCount),
+            calculator.getPenalty(order, screenLinesCount), DELTA);
+        assertTrue(calculator.getPenalty(order, screenLinesCount) < penalty);
+        assertEquals(1, calculator.getPenaltyCacheHits());
+        assertEquals(2, calculator.getPenaltyCacheMisses());
+    }
+
+    @Test
+    public void testPenaltyBreakdown() throws Exception {
+        final int screenLinesCount = 3;
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        final MethodOrder order = withDefaultConfigOrdering("InputPenaltyCalculator.java");
+        final PenaltyBreakdown breakdown = calculator.getPenaltyBreakdown(order,
+            screenLinesCount);
+        assertEquals(order.getTotalSumOfMethodDistances(),
+            breakdown.getTotalSumOfMethodDistances());
+        assertEquals(order.getDeclarationBeforeUsageCases(),
+            breakdown.getDeclarationBeforeUsageCases());
+        assertEquals(order.getCtorGroupsSplitCases(), breakdown.getCtorGroupsSplitCases());
+        assertEquals(order.getOverloadGroupsSplitCases(),
+            breakdown.getOverloadGroupsSplitCases());
+        assertEquals(order.getOverrideGroupSplitCases(), breakdown.getOverrideGroupSplitCases());
+        assertEquals(order.getAccessorsSplitCases(), breakdown.getAccessorsSplitCases());
+        assertEquals(order.getRelativeOrderInconsistencyCases(),
+            breakdown.getRelativeOrderInconsistencyCases());
+        assertEquals(order.getDependenciesBetweenDistantMethodsCases(screenLinesCount),
+            breakdown.getDependenciesBetweenDistantMethodsCases());
+        final float expectedPenalty = breakdown.getTotalSumOfMethodDistances()
+            + breakdown.getDeclarationBeforeUsageCases()
+                * PenaltyCalculator.DEFAULT_DECLARATION_BEFORE_USAGE_PENALTY
+            + breakdown.getCtorGroupsSplitCases()
+                * PenaltyCalculator.DEFAULT_CTOR_GROUP_DIVISION_PENALTY
+            + breakdown.getOverloadGroupsSplitCases()
+                * PenaltyCalculator.DEFAULT_OVERLOAD_GROUP_DIVISION_PENALTY
+            + breakdown.getOverrideGroupSplitCases()
+                * PenaltyCalculator.DEFAULT_OVERRIDE_GROUP_DIVISION_PENALTY
+            + breakdown.getAccessorsSplitCases()
+                * PenaltyCalculator.DEFAULT_ACCESSOR_GROUP_DIVISION_PENALTY
+            + breakdown.getRelativeOrderInconsistencyCases()
+                * PenaltyCalculator.DEFAULT_RELATIVE_ORDER_INCONSISTENCY_PENALTY
+            + breakdown.getDependenciesBetweenDistantMethodsCases()
+                * PenaltyCalculator.DEFAULT_DISTANT_METHODS_DEPENDENCIES_PENALTY;
+        assertEquals(expectedPenalty, breakdown.getPenalty(), DELTA);
+        assertEquals(breakdown.getPenalty(), calculator.getPenalty(order, screenLinesCount),
+            DELTA);
+    }
+
+    @Test
+    public void testOptimalityGap() throws Exception {
+        final int screenLinesCount = 50;
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        final MethodOrder recursive =
+            withDefaultConfigOrdering("InputMutuallyRecursiveMethods.java");
+        final OptimalityGap recursiveGap =
+            calculator.getOptimalityGap(recursive, screenLinesCount);
+        assertTrue(recursiveGap.isOptimal());
+        assertEquals(0, recursiveGap.getGap(), DELTA);
+        assertEquals(calculator.getPenalty(recursive, screenLinesCount),
+            recursiveGap.getLowerBound(), DELTA);
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final OptimalityGap gap = calculator.getOptimalityGap(order, screenLinesCount);
+        assertEquals(calculator.getPenalty(order, screenLinesCount), gap.getPenalty(), DELTA);
+        assertTrue(gap.getGap() > 0 && gap.getGap() < 1);
+    }
+
+    @Test
+    public void testLowerBoundOfRandomOrderings() throws Exception {
+        final int screenLinesCount = 50;
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        final Random random = new Random(1);
+        for (final String input : Arrays.asList("InputOrderingReordering1.java",
+            "InputMutuallyRecursiveMethods.java", "InputPrivateHelpers.java")) {
+            final MethodOrder order = withDefaultConfigOrdering(input);
+            final List<Method> methods = new ArrayList<>(order.getMethods());
+            for (int attempt = 0; attempt < 100; ++attempt) {
+                Collections.shuffle(methods, random);
+                final MethodOrder shuffled = order.reorder(methods);
+                final float penalty = calculator.getPenalty(shuffled, screenLinesCount);
+                for (int placedCount = 0; placedCount <= methods.size(); ++placedCount) {
+                    assertTrue(input, calculator.getPenaltyLowerBound(shuffled, placedCount,
+                        screenLinesCount) <= penalty + DELTA);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLowerBoundOfOptimalOrdering() throws Exception {
+        final int screenLinesCount = 50;
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        for (final String input : Arrays.asList("InputPenaltyCalculator.java",
+            "InputMutuallyRecursiveMethods.java", "InputPrivateHelpers.java")) {
+            final MethodOrder order = withDefaultConfigOrdering(input);
+            final BranchAndBoundMethodReorderer reorderer = new BranchAndBoundMethodReorderer();
+            reorderer.setTimeLimitMillis(Long.MAX_VALUE / 2);
+            final MethodOrder optimal = reorderer.reorder(order);
+            assertTrue(input, reorderer.isLastResultOptimal());
+            final OptimalityGap gap = calculator.getOptimalityGap(optimal, screenLinesCount);
+            assertTrue(input, gap.getLowerBound() <= gap.getPenalty() + DELTA);
+            assertTrue(input, gap.getLowerBound() > 0);
+        }
+    }
+
+    @Test
+    public void testBoundedPenalty() throws Exception {
+        final int screenLinesCount = 5;
+        final MethodOrder order = withDefaultConfigOrdering("InputOrderingReordering1.java");
+        final PenaltyCalculator calculator = new PenaltyCalculator();
+        final float penalty = calculator.getPenalty(order, screenLinesCount);
+        final PenaltyCalculator boundedCalculator = new PenaltyCalculator();
+        assertTrue(boundedCalculator.getPenalty(order, screenLinesCount, penalty / 2)
+            > penalty / 2);
+        assertEquals(penalty, boundedCalculator.getPenalty(order, screenLinesCount, penalty),
+            DELTA);
+        boundedCalculator.setDependenciesBetweenDistantMethodsPenalty(0);
+        boundedCalculator.setRelativeOrderInconsistencyPenalty(0);
+        final PenaltyBreakdown breakdown = calculator.getPenaltyBreakdown(order,
+            screenLinesCount);
+        assertEquals(penalty
+            - breakdown.getDependenciesBetweenDistantMethodsCases()
+                * PenaltyCalculator.DEFAULT_DISTANT_METHODS_DEPENDENCIES_PENALTY
+            - breakdown.getRelativeOrderInconsistencyCases()
+                * PenaltyCalculator.DEFAULT_RELATIVE_ORDER_INCONSISTENCY_PENALTY,
+            boundedCalculator.getPenalty(order, screenLinesCount, Float.MAX_VALUE), DELTA);
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.sevntu.checkstyle.domain;
+
+public class InputPrivateHelpers {
+
+    public InputPrivateHelpers() {
+        init();
+    }
+
+    public void process() {
+        validate();
+        store();
+    }
+
+    public void report() {
+        format();
+        store();
+    }
+
+    private void format() {
+    }
+
+    private void store() {
+    }
+
+    private void validate() {
+        check();
+    }
+
+    private void init() {
+    }
+
+    private void check() {
+    }
+}